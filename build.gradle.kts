@@ -1,6 +1,8 @@
 plugins {
     id("java")
     `maven-publish`
+    `java-test-fixtures`
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "net.botwithus.scripts"
@@ -48,6 +50,32 @@ tasks.named<Jar>("jar") {
     finalizedBy(copyJar)
 }
 
+// The in-memory FakeGameClient lives in src/testFixtures: tests get it from the plugin,
+// the benchmarks borrow it here so gradlew test never compiles them
+sourceSets["jmh"].apply {
+    compileClasspath += sourceSets["testFixtures"].output
+    runtimeClasspath += sourceSets["testFixtures"].output
+}
+
 tasks.getByName<Test>("test") {
     useJUnitPlatform()
+    jvmArgs("--enable-preview")
+}
+
+// Offline session trace report: gradlew replayTrace -Ptrace=path/to/trace-XXXX.bin
+tasks.register<JavaExec>("replayTrace") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("net.botwithus.scripts.TraceReplay")
+    jvmArgs("--enable-preview")
+    args(project.findProperty("trace")?.toString() ?: "")
+}
+
+// Hot-loop benchmarks against the in-memory FakeGameClient: gradlew jmh
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc")
+    jvmArgs.add("--enable-preview")
 }
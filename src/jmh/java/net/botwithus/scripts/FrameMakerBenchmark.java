@@ -0,0 +1,90 @@
+package net.botwithus.scripts;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Decision-overhead benchmarks for the state machine, run against FakeGameClient.
+ *
+ * Run with {@code gradlew jmh}; the gc profiler is enabled in build.gradle.kts so
+ * every result comes with gc.alloc.rate.norm (bytes allocated per call).
+ *
+ * drawSettings() is not covered here: ImGui is native and needs a live client.
+ * Checkpoints, timeouts and exports go to a temp directory, never the user's real one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameMakerBenchmark {
+
+    private static final int PRESETS = 1_000_000;
+
+    private FakeGameClient    client;
+    private BreezysFrameMaker script;
+    private InventorySnapshot snapshot;
+    private Path              dataDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataDir = Files.createTempDirectory("frame-maker-bench");
+        client  = new FakeGameClient(BreezysFrameMaker.WoodType.ELDER.logId, PRESETS, 600);
+        script  = new BreezysFrameMaker("FrameMakerBenchmark", null, null, client, dataDir);
+        script.setFullPipeline(true);
+        script.startSession();
+
+        snapshot = new InventorySnapshot();
+        client.interact(0, BreezysFrameMaker.BANK_CHEST_ID, 0, 0);
+        client.delay(600);   // the preset lands on the next tick
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+
+    /** One full onLoop() iteration; the fake clock makes every delay free. */
+    @Benchmark
+    public BreezysFrameMaker.State onLoop() {
+        if (!script.isRunning()) {
+            client.refill(PRESETS);
+            script.startSession();
+        }
+        script.onLoop();
+        return script.state();
+    }
+
+    /** detectInventory() against a clean snapshot -- the common case on every loop. */
+    @Benchmark
+    public BreezysFrameMaker.State detectInventory() {
+        script.detectInventory();
+        return script.resolveNextState();
+    }
+
+    /** Full single-pass snapshot rebuild of a 28-slot backpack. */
+    @Benchmark
+    public int snapshotRebuild() {
+        snapshot.rebuild(client);
+        return snapshot.total(InventorySnapshot.COL_LOGS);
+    }
+
+    @Benchmark
+    public BreezysFrameMaker.State resolveNextState() {
+        return script.resolveNextState();
+    }
+}
@@ -0,0 +1,135 @@
+package net.botwithus.scripts;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Step deadlines learned from observed durations, per (phase, state, wood tier).
+ *
+ * Each key keeps a ring of its most recent successful durations. Once a key has
+ * MIN_SAMPLES, its deadline is p99 * HEADROOM + slack, clamped between the phase
+ * floor and the fixed default the script used before. A timeout is fed back as a
+ * doubled sample so a genuinely slower station widens its own deadline instead of
+ * timing out forever. The model is saved as a small text file and reloaded on start.
+ *
+ * Synchronized: the panel reads deadlines from the render thread.
+ */
+final class AdaptiveTimeouts {
+
+    enum Phase {
+        MENU_OPEN      (1_500, 600),    // object click -> station interface open
+        PROGRESS_START (1_500, 600),    // Construct click -> progress interface open
+        BATCH          (3_000, 1_200);  // progress open -> batch complete
+
+        final long floorMs, slackMs;
+
+        Phase(long floorMs, long slackMs) {
+            this.floorMs = floorMs;
+            this.slackMs = slackMs;
+        }
+    }
+
+    private static final int    WINDOW      = 50;
+    private static final int    MIN_SAMPLES = 8;
+    private static final double HEADROOM    = 1.25;
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final BreezysFrameMaker.State[]    STATES = BreezysFrameMaker.State.values();
+    private static final BreezysFrameMaker.WoodType[] WOODS  = BreezysFrameMaker.WoodType.values();
+
+    private final long[][] samples = new long[PHASES.length * STATES.length * WOODS.length][];
+    private final int[]    counts  = new int[samples.length];   // total samples seen, ring index = count % WINDOW
+    private final long[]   scratch = new long[WINDOW];
+
+    private static int key(Phase phase, BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood) {
+        return (phase.ordinal() * STATES.length + state.ordinal()) * WOODS.length + wood.ordinal();
+    }
+
+    synchronized void record(Phase phase, BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood, long ms) {
+        if (state == null || wood == null || ms < 0) return;
+        int k = key(phase, state, wood);
+        if (samples[k] == null) samples[k] = new long[WINDOW];
+        samples[k][counts[k] % WINDOW] = ms;
+        counts[k]++;
+    }
+
+    /** Feeds a timed-out step back in so repeated timeouts widen the deadline. */
+    void recordTimeout(Phase phase, BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood, long usedDeadlineMs) {
+        record(phase, state, wood, usedDeadlineMs * 2);
+    }
+
+    /** Learned deadline for the key, or {@code defaultMs} until enough samples exist. */
+    synchronized long deadline(Phase phase, BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood, long defaultMs) {
+        if (state == null || wood == null) return defaultMs;
+        int k = key(phase, state, wood);
+        int n = Math.min(counts[k], WINDOW);
+        if (n < MIN_SAMPLES) return defaultMs;
+
+        System.arraycopy(samples[k], 0, scratch, 0, n);
+        java.util.Arrays.sort(scratch, 0, n);
+        long p99 = scratch[Math.min(n - 1, (int) Math.ceil(0.99 * n) - 1)];
+        long learned = (long) (p99 * HEADROOM) + phase.slackMs;
+        return Math.max(phase.floorMs, Math.min(defaultMs, learned));
+    }
+
+    synchronized int samples(Phase phase, BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood) {
+        return counts[key(phase, state, wood)];
+    }
+
+    // =========================================================================
+    //  PERSISTENCE   (one line per key: PHASE.STATE.WOOD=count:s1,s2,...)
+    // =========================================================================
+
+    synchronized void save(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder("# Breezy's Frame Maker learned step durations (ms)\n");
+        for (Phase p : PHASES) for (BreezysFrameMaker.State st : STATES) for (BreezysFrameMaker.WoodType w : WOODS) {
+            int k = key(p, st, w);
+            if (counts[k] == 0) continue;
+            sb.append(p.name()).append('.').append(st.name()).append('.').append(w.name())
+              .append('=').append(counts[k]).append(':');
+            int n = Math.min(counts[k], WINDOW);
+            for (int i = 0; i < n; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(samples[k][i]);
+            }
+            sb.append('\n');
+        }
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, sb.toString(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Loads a saved model. Unknown keys and malformed lines are skipped. Returns keys loaded. */
+    synchronized int load(Path file) throws IOException {
+        if (!Files.exists(file)) return 0;
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        int loaded = 0;
+        for (String line : lines) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            try {
+                int eq = line.indexOf('='), colon = line.indexOf(':', eq);
+                String[] key = line.substring(0, eq).split("\\.");
+                int k = key(Phase.valueOf(key[0]), BreezysFrameMaker.State.valueOf(key[1]),
+                            BreezysFrameMaker.WoodType.valueOf(key[2]));
+                String[] values = line.substring(colon + 1).split(",");
+                long[] ring = new long[WINDOW];
+                int n = Math.min(values.length, WINDOW);
+                for (int i = 0; i < n; i++) ring[i] = Long.parseLong(values[i].trim());
+                int seen = Integer.parseInt(line.substring(eq + 1, colon));
+                samples[k] = ring;
+                // A full ring keeps its total so the next write lands on the oldest slot; a
+                // partial one has seen exactly its values (never count the empty slots)
+                counts[k]  = n == WINDOW ? Math.max(WINDOW, seen) : n;
+                loaded++;
+            } catch (RuntimeException ignored) {
+                // stale or hand-edited line -- relearn that key
+            }
+        }
+        return loaded;
+    }
+}
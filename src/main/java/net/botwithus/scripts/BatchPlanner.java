@@ -0,0 +1,168 @@
+package net.botwithus.scripts;
+
+/**
+ * Plans every conversion the backpack still allows before the next bank trip.
+ *
+ * Works from the full per-tier, per-stage counts in the InventorySnapshot rather than
+ * the single highest-priority (wood, stage) pair. Output of one step is carried
+ * forward as input of the next (logs -> planks -> refined -> frames), so leftovers
+ * from a partial batch or a second tier are folded into the same trip. All sawmill
+ * work comes first, tier by tier, then all workbench work: one visit per station and
+ * the route always ends next to the bank chest.
+ *
+ * One action is one (step, wood) pair. The script re-plans after every inventory change,
+ * so a station that picks a different product than planned only costs a re-plan. An
+ * action the station refuses -- REFUSE_AFTER Constructs in a row on a freshly opened
+ * menu accepted without progress starting -- is dropped for the rest of the trip and
+ * its items are not carried forward; refusals are cleared at the next preset load.
+ *
+ * Arrays are preallocated; planning runs on inventory changes only, from the loop thread.
+ */
+final class BatchPlanner {
+
+    /** Where a step is done; consecutive steps at one station share a visit. */
+    enum Station {
+        SAWMILL   ("Sawmill"),
+        WORKBENCH ("Workbench");
+
+        final String label;
+
+        Station(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final BreezysFrameMaker.WoodType[] WOODS = BreezysFrameMaker.WoodType.values();
+    private static final int STATES = BreezysFrameMaker.State.values().length;
+    private static final int REFUSE_AFTER = 2;
+    private static final int MAX_ACTIONS = WOODS.length * 3;
+
+    private final BreezysFrameMaker.State[]    steps = new BreezysFrameMaker.State[MAX_ACTIONS];
+    private final BreezysFrameMaker.WoodType[] woods = new BreezysFrameMaker.WoodType[MAX_ACTIONS];
+    private final int[] items = new int[MAX_ACTIONS];
+    private int size     = 0;
+    private int revision = 0;
+
+    // Projected stock per wood while planning
+    private final int[] logs    = new int[WOODS.length];
+    private final int[] planks  = new int[WOODS.length];
+    private final int[] refined = new int[WOODS.length];
+
+    // Per (step, wood): fresh-menu Constructs in a row that never started, and refusals this trip
+    private final int[][]     misses  = new int[STATES][WOODS.length];
+    private final boolean[][] refused = new boolean[STATES][WOODS.length];
+    private int refusals = 0;
+
+    /** Re-plans from the snapshot. Frames-only mode plans workbench steps only. */
+    void plan(InventorySnapshot inventory, boolean fullPipeline) {
+        size = 0;
+        revision++;
+        for (BreezysFrameMaker.WoodType w : WOODS) {
+            int i = w.ordinal();
+            logs[i]    = inventory.logs(w);
+            planks[i]  = inventory.planks(w);
+            refined[i] = inventory.refined(w);
+        }
+        if (fullPipeline) {
+            for (BreezysFrameMaker.WoodType w : WOODS) {
+                int i = w.ordinal();
+                if (logs[i] > 0 && !isRefused(BreezysFrameMaker.State.LOGS_TO_PLANKS, w)) {
+                    add(BreezysFrameMaker.State.LOGS_TO_PLANKS, w, logs[i]);
+                    planks[i] += logs[i];
+                    logs[i]    = 0;
+                }
+                if (planks[i] > 0 && !isRefused(BreezysFrameMaker.State.PLANKS_TO_REFINED, w)) {
+                    add(BreezysFrameMaker.State.PLANKS_TO_REFINED, w, planks[i]);
+                    refined[i] += planks[i];
+                    planks[i]   = 0;
+                }
+            }
+        }
+        for (BreezysFrameMaker.WoodType w : WOODS) {
+            int i = w.ordinal();
+            if (refined[i] > 0 && !isRefused(BreezysFrameMaker.State.REFINED_TO_FRAMES, w)) {
+                add(BreezysFrameMaker.State.REFINED_TO_FRAMES, w, refined[i]);
+            }
+        }
+    }
+
+    /**
+     * A Construct for this action on a freshly opened menu was accepted but progress never
+     * started. Returns true once that happened REFUSE_AFTER times in a row and the action
+     * is dropped from every plan until {@link #clearRefusals()}; takes effect at the next plan.
+     */
+    boolean missed(BreezysFrameMaker.State step, BreezysFrameMaker.WoodType wood) {
+        int s = step.ordinal(), w = wood.ordinal();
+        if (refused[s][w]) return true;
+        if (++misses[s][w] < REFUSE_AFTER) return false;
+        refused[s][w] = true;
+        refusals++;
+        return true;
+    }
+
+    /** Progress started for this action, so its earlier misses were not a refusal. */
+    void started(BreezysFrameMaker.State step, BreezysFrameMaker.WoodType wood) {
+        misses[step.ordinal()][wood.ordinal()] = 0;
+    }
+
+    /** Forgets every miss and refusal; called when a new trip starts. */
+    void clearRefusals() {
+        for (int[] row : misses) java.util.Arrays.fill(row, 0);
+        for (boolean[] row : refused) java.util.Arrays.fill(row, false);
+        refusals = 0;
+    }
+
+    boolean isRefused(BreezysFrameMaker.State step, BreezysFrameMaker.WoodType wood) {
+        return refused[step.ordinal()][wood.ordinal()];
+    }
+
+    int refusals() { return refusals; }
+
+    static int refuseAfter() { return REFUSE_AFTER; }
+
+    private void add(BreezysFrameMaker.State step, BreezysFrameMaker.WoodType wood, int n) {
+        steps[size] = step;
+        woods[size] = wood;
+        items[size] = n;
+        size++;
+    }
+
+    static Station station(BreezysFrameMaker.State step) {
+        return step == BreezysFrameMaker.State.REFINED_TO_FRAMES ? Station.WORKBENCH : Station.SAWMILL;
+    }
+
+    private static String input(BreezysFrameMaker.State step) {
+        return switch (step) {
+            case LOGS_TO_PLANKS    -> "logs";
+            case PLANKS_TO_REFINED -> "planks";
+            default                -> "refined";
+        };
+    }
+
+    int size()                              { return size; }
+    int revision()                          { return revision; }
+    BreezysFrameMaker.State    step(int i)  { return steps[i]; }
+    BreezysFrameMaker.WoodType wood(int i)  { return woods[i]; }
+    int items(int i)                        { return items[i]; }
+
+    /** Station visits before banking: every change of station along the plan counts one. */
+    int stationVisits() {
+        int visits = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || station(steps[i]) != station(steps[i - 1])) visits++;
+        }
+        return visits;
+    }
+
+    /** Human-readable plan for the panel. */
+    String describe() {
+        if (size == 0) return "bank";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(" > ");
+            sb.append(station(steps[i]).label).append(' ').append(woods[i].name).append(' ')
+              .append(input(steps[i])).append(" x").append(items[i]);
+        }
+        return sb.append(" > bank").toString();
+    }
+}
@@ -0,0 +1,116 @@
+package net.botwithus.scripts;
+
+import java.util.Random;
+
+/**
+ * Time-based AFK breaks with a per-hour downtime budget.
+ *
+ * The gap to the next break is drawn from an exponential distribution (mean MEAN_GAP_MS),
+ * so breaks come at unpredictable times but at a steady rate regardless of how fast
+ * the loop spins. The script only asks at batch boundaries -- before a preset load,
+ * with no station interface open -- so a break never splits a pipeline.
+ *
+ * Every break is clamped to what is left of the budget in the trailing hour. When the
+ * budget is spent the break is pushed back until the oldest break ages out of the window.
+ */
+final class BreakScheduler {
+
+    /** Selectable downtime budgets, minutes per hour. */
+    static final int[] BUDGET_CHOICES_MIN = { 2, 3, 5, 8 };
+
+    private static final long HOUR_MS      = 3_600_000L;
+    private static final long MEAN_GAP_MS  = 12 * 60_000L;
+    private static final long MIN_BREAK_MS = 10_000;
+    private static final long MAX_BREAK_MS = 90_000;
+    private static final int  HISTORY      = 64;
+
+    private final Random random = new Random();
+
+    private volatile int budgetChoice = 1;   // index into BUDGET_CHOICES_MIN
+    private long dueAtMs = -1;
+
+    // Recent breaks, ring buffer: start time and length
+    private final long[] startedMs = new long[HISTORY];
+    private final long[] lengthMs  = new long[HISTORY];
+    private int count = 0;
+
+    private volatile int  taken;
+    private volatile long totalMs;
+
+    long    budgetMs()       { return BUDGET_CHOICES_MIN[budgetChoice] * 60_000L; }
+    int     budgetMinutes()  { return BUDGET_CHOICES_MIN[budgetChoice]; }
+    int     budgetChoice()   { return budgetChoice; }
+    int     taken()          { return taken; }
+    long    totalMs()        { return totalMs; }
+    long    dueAtMs()        { return dueAtMs; }
+
+    /** Cycles to the next budget choice (panel button). */
+    void nextBudget() {
+        budgetChoice = (budgetChoice + 1) % BUDGET_CHOICES_MIN.length;
+    }
+
+    /** New session: clears history and schedules the first break. */
+    void start(long nowMs) {
+        count   = 0;
+        taken   = 0;
+        totalMs = 0;
+        dueAtMs = nowMs + nextGap();
+    }
+
+    /**
+     * Called at a batch boundary. Returns how long to break for now, or 0 to keep
+     * working (not due yet, or the hour's budget is used up).
+     */
+    long due(long nowMs) {
+        if (dueAtMs < 0 || nowMs < dueAtMs) return 0;
+        long left = budgetMs() - usedInLastHour(nowMs);
+        if (left < MIN_BREAK_MS) {
+            dueAtMs = budgetFreesAt(nowMs, MIN_BREAK_MS - left);
+            return 0;
+        }
+        long want = MIN_BREAK_MS + (long) (random.nextDouble() * (MAX_BREAK_MS - MIN_BREAK_MS));
+        return Math.min(want, left);
+    }
+
+    /** Records a break that was taken and schedules the next one. */
+    void taken(long startMs, long ms) {
+        int i = count % HISTORY;
+        startedMs[i] = startMs;
+        lengthMs[i]  = ms;
+        count++;
+        taken++;
+        totalMs += ms;
+        dueAtMs = startMs + ms + nextGap();
+    }
+
+    /** Break time inside the trailing hour, counting only the part of each break within it. */
+    long usedInLastHour(long nowMs) {
+        long from = nowMs - HOUR_MS, used = 0;
+        for (int k = Math.max(0, count - HISTORY); k < count; k++) {
+            int  i   = k % HISTORY;
+            long end = startedMs[i] + lengthMs[i];
+            if (end > from) used += end - Math.max(startedMs[i], from);
+        }
+        return used;
+    }
+
+    /** Earliest time at which at least {@code needMs} more of the budget has aged out. */
+    private long budgetFreesAt(long nowMs, long needMs) {
+        long freed = 0;
+        for (int k = Math.max(0, count - HISTORY); k < count; k++) {
+            int i = k % HISTORY;
+            if (startedMs[i] + lengthMs[i] <= nowMs - HOUR_MS) continue;
+            freed += lengthMs[i];
+            if (freed >= needMs) return startedMs[i] + lengthMs[i] + HOUR_MS;
+        }
+        return nowMs + HOUR_MS;
+    }
+
+    private long nextGap() {
+        return (long) (-Math.log(1 - random.nextDouble()) * MEAN_GAP_MS);
+    }
+
+    static long meanGapMs()   { return MEAN_GAP_MS; }
+    static long minBreakMs()  { return MIN_BREAK_MS; }
+    static long maxBreakMs()  { return MAX_BREAK_MS; }
+}
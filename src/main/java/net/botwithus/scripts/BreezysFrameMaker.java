@@ -1,17 +1,10 @@
 package net.botwithus.scripts;
 
 import net.botwithus.internal.scripts.ScriptDefinition;
-import net.botwithus.rs3.game.Client;
-import net.botwithus.rs3.game.hud.interfaces.Interfaces;
-import net.botwithus.rs3.game.inventories.Backpack;
-import net.botwithus.rs3.game.inventories.Bank;
-import net.botwithus.rs3.game.minimenu.MiniMenu;
+import net.botwithus.rs3.events.impl.InventoryUpdateEvent;
 import net.botwithus.rs3.game.minimenu.actions.ComponentAction;
 import net.botwithus.rs3.game.minimenu.actions.ObjectAction;
-import net.botwithus.rs3.game.skills.Skill;
-import net.botwithus.rs3.game.skills.Skills;
 import net.botwithus.rs3.imgui.ImGui;
-import net.botwithus.rs3.script.Execution;
 import net.botwithus.rs3.script.LoopingScript;
 import net.botwithus.rs3.script.ScriptGraphicsContext;
 import net.botwithus.rs3.script.config.ScriptConfig;
@@ -71,34 +64,41 @@ public class BreezysFrameMaker extends LoopingScript {
     // =========================================================================
     //  OBJECT / INTERFACE CONSTANTS
     // =========================================================================
-    private static final int  BANK_CHEST_ID   = 125239;
-    private static final int  BANK_CHEST_X    = 3283;
-    private static final int  BANK_CHEST_Y    = 3555;
+    static final int  BANK_CHEST_ID   = 125239;
+    static final int  BANK_CHEST_X    = 3283;
+    static final int  BANK_CHEST_Y    = 3555;
 
-    private static final int  SAWMILL_ID      = 125240;
-    private static final int  SAWMILL_X       = 3281;
-    private static final int  SAWMILL_Y       = 3550;
+    static final int  SAWMILL_ID      = 125240;
+    static final int  SAWMILL_X       = 3281;
+    static final int  SAWMILL_Y       = 3550;
 
-    private static final int  WORKBENCH_ID    = 125054;
-    private static final int  WORKBENCH_X     = 3282;
-    private static final int  WORKBENCH_Y     = 3550;
+    static final int  WORKBENCH_ID    = 125054;
+    static final int  WORKBENCH_X     = 3282;
+    static final int  WORKBENCH_Y     = 3550;
 
-    private static final int  SAWMILL_IF      = 1370;
-    private static final int  WORKBENCH_IF    = 1371;
-    private static final int  PROGRESS_IF     = 1251;
-    private static final int  DIALOGUE_PARAM3 = 89784350;
+    static final int  SAWMILL_IF      = 1370;
+    static final int  WORKBENCH_IF    = 1371;
+    static final int  PROGRESS_IF     = 1251;
+    static final int  DIALOGUE_PARAM3 = 89784350;
 
-    // Safety timeouts per processing step
+    // Safety timeouts per processing step (upper bounds -- AdaptiveTimeouts tightens them)
     private static final long TIMEOUT_LOGS_TO_PLANKS    = 40_000L;
     private static final long TIMEOUT_PLANKS_TO_REFINED = 20_000L;
     private static final long TIMEOUT_REFINED_TO_FRAMES = 90_000L;
+    private static final long TIMEOUT_MENU_OPEN         = 5_000L;
+    private static final long TIMEOUT_PROGRESS_START    = 5_000L;
 
-    // Price cache: tries Wiki API first, falls back to static GE estimates if sandbox blocks HTTP
+    // Default home of the session exports (latency CSV/JSON, rolling log, checkpoint, etc.)
+    static final java.nio.file.Path DATA_DIR =
+        java.nio.file.Path.of(System.getProperty("user.home"), "BotWithUs", "frame-maker");
+
+    // Simulated hours per configuration when ranking modes/tiers
+    private static final int SIM_HOURS = 1_000;
 
     // =========================================================================
     //  WOOD TIERS  (highest XP first)
     // =========================================================================
-    private enum WoodType {
+    enum WoodType {
         //         name          logId  plankId  refinedId  frameId
         ELDER    ("Elder",       29556, 54870,   54846,     54858),
         MAGIC    ("Magic",       1513,  54868,   54844,     54856),
@@ -126,9 +126,9 @@ public class BreezysFrameMaker extends LoopingScript {
     // =========================================================================
     //  ENUMS
     // =========================================================================
-    private enum Stage { LOGS, PLANKS, REFINED, UNKNOWN }
+    enum Stage { LOGS, PLANKS, REFINED, UNKNOWN }
 
-    private enum State {
+    enum State {
         IDLE,
         LOAD_PRESET,
         LOGS_TO_PLANKS,       // Sawmill step A: logs -> planks
@@ -145,25 +145,116 @@ public class BreezysFrameMaker extends LoopingScript {
     private Stage    currentStage = Stage.UNKNOWN;
 
     private boolean running      = false;
+    private boolean resumePending = false;   // restored from a checkpoint; revalidated on the first loop
     private boolean fullPipeline = false;
     private boolean randomAfk    = false;
+    private boolean recordTrace  = false;
 
     private int  totalBatches       = 0;
-    private int  presetRetries      = 0;   // stop if bank chest fails too many times
 
     private int  startXp     = 0;
     private long startTimeMs = 0;
+    private int  cycleStartXp = -1;   // XP at the last preset load, for XP-per-frame learning
+
+    // Learned XP per frame for each mode ([0] frames only, [1] full pipeline) and wood; NaN = unseen
+    private final double[][] xpPerFrame = new double[2][WoodType.values().length];
+
+    // Throughput simulator runs off the loop and render threads; result is read by the panel
+    private java.util.concurrent.ForkJoinPool simPool;
+    private volatile java.util.List<ThroughputSimulator.Result> simResults = null;
+    private volatile ThroughputSimulator.Objective simRankedBy = null;   // objective simResults were ranked by
+    private volatile boolean simRunning = false;
+    // Frames by default: XP per frame is only known for (mode, wood) pairs already played
+    private ThroughputSimulator.Objective simObjective = ThroughputSimulator.Objective.FRAMES;
 
     // GP / profit tracking
+    private final PriceService prices;
+    private long cycleInputValue = -1;   // GP value of the preset's input items, -1 = unpriced
+    private long lastBatchProfit = 0;
+    private long sessionProfit   = 0;
+    private boolean anyProfit    = false;
+
+    // Failure classification, per-class backoff and the reset/stop circuit breaker
+    private final RecoveryEngine recovery = new RecoveryEngine();
+    private State failedIn = null;   // step whose failure opened the current streak
+
+    // AFK breaks: time-based, only between batches, capped by a per-hour downtime budget
+    private final BreakScheduler breaks = new BreakScheduler();
+
+    // Backpack snapshot: rebuilt once per inventory change instead of probing per item
+    private final TraceRecorder     trace = new TraceRecorder();
+    private final ScriptLog         log;
+    private final GameClient        client;
+    private final InventorySnapshot inventory = new InventorySnapshot();
+    private final CompletionWaiter  completion;
+
+    // Server tick phase learned from backpack changes; delays and polls snap to it
+    private final TickClock ticks = new TickClock();
+
+    // Follow-up click staged while a batch runs, so its delay overlaps the wait's tail
+    private final SpeculativeScheduler speculation = new SpeculativeScheduler();
+
+    // Every conversion the backpack allows before banking; re-planned on inventory change
+    private final BatchPlanner planner = new BatchPlanner();
+    private int     plannedAt       = -1;   // inventory.rebuilds() the plan was made from
+    private boolean plannedPipeline = false;
+
+    // Which station menu is live, so consecutive steps at one station skip the object click
+    private final StationChain stations = new StationChain();
+
+    // Per-step latency histograms, exported to dataDir when the session ends
+    private final StepMetrics metrics = new StepMetrics();
+    private volatile boolean stopPending = false;   // Stop was pressed; the loop thread checkpoints and exports
+
+    // Learned per-(step, wood) deadlines, persisted to timeoutsFile
+    private final AdaptiveTimeouts timeouts = new AdaptiveTimeouts();
+
+    // Everything the script persists lives under dataDir (DATA_DIR unless a test or benchmark overrides it)
+    private final java.nio.file.Path dataDir;
+    private final java.nio.file.Path timeoutsFile;
+    private final java.nio.file.Path logFile;
+    private final java.nio.file.Path checkpointFile;
 
-    private final java.util.Random random = new java.util.Random();
+    // Lock-free counters for fleet monitoring: a platform MBean, plus /metrics on localhost when enabled
+    private final ScriptMetrics      exported;
+    private final PrometheusEndpoint endpoint;
 
     // =========================================================================
     //  CONSTRUCTOR
     // =========================================================================
     public BreezysFrameMaker(String name, ScriptConfig config, ScriptDefinition scriptDefinition) {
+        this(name, config, scriptDefinition, new LiveGameClient(), DATA_DIR);
+        subscribe(InventoryUpdateEvent.class, event -> {
+            if (event.getInventoryId() == InventorySnapshot.BACKPACK_INVENTORY_ID) backpackChanged();
+        });
+    }
+
+    /**
+     * Wires the script to any GameClient -- the live one above, or the in-memory fake for
+     * benchmarks -- and to the directory it persists to, so fake sessions never touch the
+     * real checkpoint, timeouts or exports.
+     */
+    BreezysFrameMaker(String name, ScriptConfig config, ScriptDefinition scriptDefinition, GameClient client,
+                      java.nio.file.Path dataDir) {
         super(name, config, scriptDefinition);
+        this.dataDir        = dataDir;
+        this.timeoutsFile   = dataDir.resolve("timeouts.txt");
+        this.logFile        = dataDir.resolve("frame-maker.log");
+        this.checkpointFile = dataDir.resolve("checkpoint.txt");
+        this.log        = new ScriptLog(this::println);
+        this.client     = new TracingGameClient(client, trace);
+        // Price cache: local override file, then Wiki API; last good prices kept in a snapshot,
+        // bundled static estimates as last resort
+        this.prices     = new PriceService(
+            java.util.List.of(PriceSource.PropertiesFile.file(dataDir.resolve("prices.properties")), new PriceSource.WikiApi()),
+            PriceSource.PropertiesFile.resource("/prices.properties"), dataDir.resolve("prices.cache"), log);
+        this.completion = new CompletionWaiter(this.client, inventory, ticks);
+        this.exported   = new ScriptMetrics(name, metrics);
+        this.endpoint   = new PrometheusEndpoint(exported);
         this.sgc = new FrameCrafterUI(getConsole(), this);
+        client.onBackpackChange(this::backpackChanged);
+        for (double[] row : xpPerFrame) java.util.Arrays.fill(row, Double.NaN);
+        log.start();
     }
 
     // =========================================================================
@@ -171,113 +262,130 @@ public class BreezysFrameMaker extends LoopingScript {
     // =========================================================================
     @Override
     public void onLoop() {
-        if (!running) { Execution.delay(300); return; }
-
-        if (randomAfk && random.nextInt(50) == 0) {
-            long pause = random.nextLong(5000, 15000);
-            println("[FrameCrafter] AFK break for " + String.format("%.1f", pause / 1000.0) + "s...");
-            Execution.delay(pause);
+        if (stopPending) {
+            stopPending = false;
+            saveCheckpoint();
+            exportMetrics();
         }
+        if (!running) { client.delay(300); return; }
+        if (resumePending) resume();
 
         detectInventory();
 
-        switch (state) {
+        State before = state;
+        try {
+            switch (state) {
 
-            case IDLE -> state = State.LOAD_PRESET;
+                case IDLE -> state = State.LOAD_PRESET;
 
-            // ------------------------------------------------------------------
-            case LOAD_PRESET -> {
-                println("[FrameCrafter] Loading preset from Bank Chest...");
-                randomDelay(400, 900);
-                boolean clicked = MiniMenu.interact(
-                    ObjectAction.OBJECT4.getType(), BANK_CHEST_ID, BANK_CHEST_X, BANK_CHEST_Y
-                );
-                if (clicked) {
-                    Execution.delayUntil(5000, Bank::isOpen);
-                    Execution.delayUntil(5000, () -> !Bank.isOpen());
-                    Execution.delay(600);
-                    detectInventory();
+                // ------------------------------------------------------------------
+                case LOAD_PRESET -> {
+                    takeBreakIfDue();
+                    log.info("Loading preset from Bank Chest...");
+                    long presetStart = System.nanoTime();
+                    reactionDelay(BANK_CHEST_ID, 400, 900);
+                    boolean clicked = client.interact(
+                        ObjectAction.OBJECT4.getType(), BANK_CHEST_ID, BANK_CHEST_X, BANK_CHEST_Y
+                    );
+                    if (!clicked) { recover(RecoveryEngine.Failure.CLICK_REJECTED); return; }
+                    stations.reset();
+                    planner.clearRefusals();   // a new trip: give refused actions another go
+                    if (!client.delayUntil(5000, client::isBankOpen) && !inventory.isDirty()) {
+                        recover(RecoveryEngine.Failure.INTERFACE_NEVER_OPENED);
+                        return;
+                    }
+                    client.delayUntil(5000, () -> !client.isBankOpen());
+                    settleDelay(600);
+                    redetectInventory();
+                    metrics.since(StepMetrics.Step.LOAD_PRESET, state, currentWood, presetStart);
 
                     if (currentWood == null || currentStage == Stage.UNKNOWN) {
-                        println("[FrameCrafter] No recognised items after preset load. Finished.");
+                        log.info("No recognised items after preset load. Finished.");
                         state = State.DONE;
                         return;
                     }
-                    presetRetries = 0;
-                    println("[FrameCrafter] Preset loaded: " + currentWood.name + " / " + currentStage);
+                    // A loaded preset only proves the bank works: a streak a station started stays
+                    // open, so a recipe it always refuses still trips the breaker across trips
+                    if (failedIn == null || failedIn == State.LOAD_PRESET) recovered();
+                    cycleStartXp    = client.constructionXp();
+                    cycleInputValue = inputValue();
+                    log.info("Preset loaded: {} / {}", currentWood.name, currentStage);
                     state = resolveNextState();
-                } else {
-                    presetRetries++;
-                    println("[FrameCrafter] Failed to click Bank Chest (attempt " + presetRetries + "/5), retrying...");
-                    if (presetRetries >= 5) {
-                        println("[FrameCrafter] Too many Bank Chest failures. Stopping.");
-                        state = State.DONE;
-                    }
-                    Execution.delay(1200);
+                    saveCheckpoint();   // batch boundary: a restart resumes from the loaded preset
                 }
-            }
 
-            // ------------------------------------------------------------------
-            case LOGS_TO_PLANKS -> {
-                if (currentStage != Stage.LOGS) { state = resolveNextState(); return; }
-                println("[FrameCrafter] Sawmill: logs -> planks...");
-                if (openMenu(SAWMILL_ID, SAWMILL_X, SAWMILL_Y, SAWMILL_IF)) {
-                    if (clickConstruct()) {
-                        waitForProgress(TIMEOUT_LOGS_TO_PLANKS);
-                        detectInventory();
-                        if (currentWood == null || currentStage == Stage.UNKNOWN) {
-                            println("[FrameCrafter] Out of logs after processing. Finished.");
-                            state = State.DONE;
-                        } else {
-                            state = resolveNextState();
+                // ------------------------------------------------------------------
+                case LOGS_TO_PLANKS -> {
+                    if (currentStage != Stage.LOGS) { state = resolveNextState(); return; }
+                    log.info("Sawmill: logs -> planks...");
+                    if (ensureMenu(SAWMILL_ID, SAWMILL_X, SAWMILL_Y, SAWMILL_IF)) {
+                        if (clickConstruct()) {
+                            if (!waitForProgress(TIMEOUT_LOGS_TO_PLANKS)) return;
+                            redetectInventory();
+                            // An empty plan need not mean the supplies ran out (the rest may be
+                            // refused this trip): the bank decides whether there is more to do
+                            state = currentWood != null ? resolveNextState() : State.LOAD_PRESET;
+                            saveCheckpoint();
                         }
                     }
                 }
-            }
 
-            // ------------------------------------------------------------------
-            case PLANKS_TO_REFINED -> {
-                if (currentStage != Stage.PLANKS) { state = resolveNextState(); return; }
-                println("[FrameCrafter] Sawmill: planks -> refined planks...");
-                if (openMenu(SAWMILL_ID, SAWMILL_X, SAWMILL_Y, SAWMILL_IF)) {
-                    if (clickConstruct()) {
-                        waitForProgress(TIMEOUT_PLANKS_TO_REFINED);
-                        detectInventory();
-                        if (currentWood == null || currentStage == Stage.UNKNOWN) {
-                            println("[FrameCrafter] Out of planks after processing. Finished.");
-                            state = State.DONE;
-                        } else {
-                            state = resolveNextState();
+                // ------------------------------------------------------------------
+                case PLANKS_TO_REFINED -> {
+                    if (currentStage != Stage.PLANKS) { state = resolveNextState(); return; }
+                    log.info("Sawmill: planks -> refined planks...");
+                    if (ensureMenu(SAWMILL_ID, SAWMILL_X, SAWMILL_Y, SAWMILL_IF)) {
+                        if (clickConstruct()) {
+                            if (!waitForProgress(TIMEOUT_PLANKS_TO_REFINED)) return;
+                            redetectInventory();
+                            // An empty plan need not mean the supplies ran out (the rest may be
+                            // refused this trip): the bank decides whether there is more to do
+                            state = currentWood != null ? resolveNextState() : State.LOAD_PRESET;
+                            saveCheckpoint();
                         }
                     }
                 }
-            }
 
-            // ------------------------------------------------------------------
-            case REFINED_TO_FRAMES -> {
-                if (currentStage != Stage.REFINED) { state = resolveNextState(); return; }
-                println("[FrameCrafter] Workbench: refined planks -> frames...");
-                if (!Interfaces.isOpen(WORKBENCH_IF)) {
-                    if (!openMenu(WORKBENCH_ID, WORKBENCH_X, WORKBENCH_Y, WORKBENCH_IF)) return;
+                // ------------------------------------------------------------------
+                case REFINED_TO_FRAMES -> {
+                    if (currentStage != Stage.REFINED) { state = resolveNextState(); return; }
+                    log.info("Workbench: refined planks -> frames...");
+                    if (!ensureMenu(WORKBENCH_ID, WORKBENCH_X, WORKBENCH_Y, WORKBENCH_IF)) return;
+                    if (clickConstruct()) {
+                        WoodType batchWood = currentWood;
+                        if (!waitForProgress(TIMEOUT_REFINED_TO_FRAMES)) return;
+                        totalBatches++;
+                        exported.batch();
+                        trace.record(TraceRecorder.BATCH, client.currentTimeMillis(), totalBatches);
+                        log.info("Batch #{} complete.", totalBatches);
+                        if (totalBatches % 10 == 0) saveTimeouts();
+                        redetectInventory();
+                        learnXpPerFrame(batchWood);
+                        recordProfit(batchWood);
+                        // Clear any leftover stock (partial batch, second tier) before banking;
+                        // if the preset is empty the LOAD_PRESET state will catch it and stop
+                        state = currentWood != null ? resolveNextState() : State.LOAD_PRESET;
+                        saveCheckpoint();
+                    }
                 }
-                if (clickConstruct()) {
-                    waitForProgress(TIMEOUT_REFINED_TO_FRAMES);
-                    totalBatches++;
-                    println("[FrameCrafter] Batch #" + totalBatches + " complete.");
-                    detectInventory();
-                    // After crafting, inventory will be frames -- go bank for more
-                    // But if preset is empty the LOAD_PRESET state will catch it and stop
-                    state = State.LOAD_PRESET;
+
+                // ------------------------------------------------------------------
+                case DONE -> {
+                    log.info("No items remaining. Logging out...");
+                    logout();
+                    running = false;
+                    state   = State.IDLE;
+                    log.info("Finished. Total batches: {}", totalBatches);
+                    saveCheckpoint();   // nothing to resume, but keep the learned timings
+                    exportMetrics();
+                    saveTimeouts();
+                    stopTrace();
                 }
             }
-
-            // ------------------------------------------------------------------
-            case DONE -> {
-                println("[FrameCrafter] No items remaining. Logging out...");
-                logout();
-                running = false;
-                state   = State.IDLE;
-                println("[FrameCrafter] Finished. Total batches: " + totalBatches);
+        } finally {
+            if (state != before) {
+                trace.record(TraceRecorder.STATE, client.currentTimeMillis(), before.ordinal(), state.ordinal(), 0, 0);
+                publishMetrics();
             }
         }
     }
@@ -286,85 +394,427 @@ public class BreezysFrameMaker extends LoopingScript {
     //  HELPERS
     // =========================================================================
 
-    /** Detects what wood type and pipeline stage is currently in the inventory. */
-    private void detectInventory() {
-        for (WoodType w : WoodType.values()) {
-            if (Backpack.contains(w.refinedId)) { currentWood = w; currentStage = Stage.REFINED; return; }
-        }
-        for (WoodType w : WoodType.values()) {
-            if (w.plankId > 0 && Backpack.contains(w.plankId)) { currentWood = w; currentStage = Stage.PLANKS; return; }
+    /**
+     * Detects what wood type and pipeline stage to work on next: the head of the batch plan.
+     * Reads the cached snapshot; the backpack is only re-scanned (and re-planned) after it changed.
+     */
+    void detectInventory() {
+        boolean rebuilt = inventory.refreshIfDirty(client);
+        if (rebuilt || plannedAt != inventory.rebuilds() || plannedPipeline != fullPipeline) {
+            planner.plan(inventory, fullPipeline);
+            plannedAt       = inventory.rebuilds();
+            plannedPipeline = fullPipeline;
         }
-        for (WoodType w : WoodType.values()) {
-            if (Backpack.contains(w.logId)) { currentWood = w; currentStage = Stage.LOGS; return; }
+        if (planner.size() > 0) {
+            currentWood  = planner.wood(0);
+            currentStage = inputStage(planner.step(0));
+        } else {
+            currentWood  = null;
+            currentStage = Stage.UNKNOWN;
         }
-        currentWood  = null;
-        currentStage = Stage.UNKNOWN;
+        if (rebuilt && trace.isRecording()) traceInventory();
+    }
+
+    private static Stage inputStage(State step) {
+        return switch (step) {
+            case LOGS_TO_PLANKS    -> Stage.LOGS;
+            case PLANKS_TO_REFINED -> Stage.PLANKS;
+            default                -> Stage.REFINED;
+        };
+    }
+
+    private void traceInventory() {
+        WoodType w = currentWood;
+        trace.record(TraceRecorder.INVENTORY, client.currentTimeMillis(),
+            w == null ? -1 : w.ordinal(), currentStage.ordinal(),
+            w == null ? 0 : (inventory.logs(w) << 16) | inventory.planks(w),
+            w == null ? 0 : (inventory.refined(w) << 16) | inventory.frames(w));
+    }
+
+    /** Forces a re-scan after a step that is known to have changed the backpack. */
+    private void redetectInventory() {
+        inventory.invalidate();
+        detectInventory();
     }
 
     /**
-     * Determines the next state based on current inventory stage and pipeline mode.
-     * In frames-only mode, always jumps straight to REFINED_TO_FRAMES.
+     * Determines the next state from the batch plan; DONE when nothing is left to convert.
+     * In frames-only mode the plan only ever holds REFINED_TO_FRAMES steps.
      */
-    private State resolveNextState() {
-        if (currentWood == null || currentStage == Stage.UNKNOWN) return State.DONE;
-        if (!fullPipeline) return State.REFINED_TO_FRAMES;
-        return switch (currentStage) {
-            case LOGS    -> State.LOGS_TO_PLANKS;
-            case PLANKS  -> State.PLANKS_TO_REFINED;
-            case REFINED -> State.REFINED_TO_FRAMES;
-            default      -> State.DONE;
-        };
+    State resolveNextState() {
+        if (currentWood == null || currentStage == Stage.UNKNOWN || planner.size() == 0) return State.DONE;
+        return planner.step(0);
+    }
+
+    /**
+     * Makes sure the station's menu is up for the current step: reuses it when it is still
+     * (or again) open from the previous step at the same station, otherwise clicks the object.
+     */
+    private boolean ensureMenu(int objId, int x, int y, int interfaceId) {
+        if (stations.tryReuse(objId, state, stationMenuOpen())) {
+            log.debug("Reusing open menu of obj {}.", objId);
+            speculation.cancel();
+            return true;
+        }
+        return openMenu(objId, x, y, interfaceId);
     }
 
-    /** Clicks a scene object and waits for its interface to open. Returns true if opened. */
+    private boolean stationMenuOpen() {
+        return client.isInterfaceOpen(SAWMILL_IF) || client.isInterfaceOpen(WORKBENCH_IF);
+    }
+
+    /**
+     * Clicks a scene object and waits for its interface to open. Returns true if opened.
+     * The latency is recorded against the step that clicked, before recovery may move on.
+     */
     private boolean openMenu(int objId, int x, int y, int interfaceId) {
-        randomDelay(300, 800);
-        boolean clicked = MiniMenu.interact(ObjectAction.OBJECT1.getType(), objId, x, y);
-        println("[FrameCrafter] Click obj " + objId + " result: " + clicked);
-        if (!clicked) { Execution.delay(1200); return false; }
-        boolean opened = Execution.delayUntil(5000, () ->
-            Interfaces.isOpen(interfaceId) || Interfaces.isOpen(WORKBENCH_IF) || Interfaces.isOpen(SAWMILL_IF)
+        State    step = state;
+        WoodType wood = currentWood;
+        long t0 = System.nanoTime();
+        RecoveryEngine.Failure failure;
+        try {
+            failure = openMenuTimed(objId, x, y, interfaceId);
+        } finally {
+            metrics.since(StepMetrics.Step.OPEN_MENU, step, wood, t0);
+        }
+        if (failure == null) return true;
+        recover(failure);
+        return false;
+    }
+
+    /** Returns the failure to recover from, or null once the menu is up. */
+    private RecoveryEngine.Failure openMenuTimed(int objId, int x, int y, int interfaceId) {
+        reactionDelay(objId, 300, 800);
+        if (stations.tryReuse(objId, state, stationMenuOpen())) return null;   // came back up during the delay
+        boolean clicked = client.interact(ObjectAction.OBJECT1.getType(), objId, x, y);
+        log.debug("Click obj {} result: {}", objId, clicked);
+        if (!clicked) return RecoveryEngine.Failure.CLICK_REJECTED;
+        long clickedAt = client.currentTimeMillis();
+        long limit     = timeouts.deadline(AdaptiveTimeouts.Phase.MENU_OPEN, state, currentWood, TIMEOUT_MENU_OPEN);
+        boolean opened = client.delayUntil(limit, () ->
+            client.isInterfaceOpen(interfaceId) || client.isInterfaceOpen(WORKBENCH_IF) || client.isInterfaceOpen(SAWMILL_IF)
         );
-        if (!opened) {
-            println("[FrameCrafter] Interface did not open, retrying...");
-            Execution.delay(1000);
+        learn(AdaptiveTimeouts.Phase.MENU_OPEN, opened, client.currentTimeMillis() - clickedAt, limit);
+        if (!opened) return RecoveryEngine.Failure.INTERFACE_NEVER_OPENED;
+        log.debug("Interface open.");
+        stations.opened(objId);
+        return null;   // not a recovery yet: only a started batch ends a failure streak
+    }
+
+    /**
+     * Fires the Construct dialogue action. Returns true if the progress interface opened.
+     * The station chain and the latency are booked against the step that clicked; only
+     * then may recovery re-plan and move the state on.
+     */
+    private boolean clickConstruct() {
+        State    step = state;
+        WoodType wood = currentWood;
+        long t0 = System.nanoTime();
+        RecoveryEngine.Failure failure;
+        try {
+            failure = clickConstructTimed();
+        } finally {
+            metrics.since(StepMetrics.Step.CLICK_CONSTRUCT, step, wood, t0);
+        }
+        boolean reused = stations.reusing();
+        stations.constructed(step, failure == null);
+        if (failure == null) {
+            if (wood != null) planner.started(step, wood);
+            recovered();
+            return true;
+        }
+        if (failure == RecoveryEngine.Failure.PROGRESS_NEVER_STARTED && reused) {
+            // A reused menu may still hold another product: StationChain has dropped it, so
+            // the retry just reopens the station. Not a failure of the action itself.
+            log.debug("Reused menu ignored Construct; reopening it.");
+            revalidate();
             return false;
         }
-        println("[FrameCrafter] Interface open.");
-        return true;
+        if (failure == RecoveryEngine.Failure.PROGRESS_NEVER_STARTED && wood != null && planner.missed(step, wood)) {
+            // The station keeps turning this action down: skip it for the rest of the trip, so
+            // the retry moves on to what is left of the plan or to the bank
+            log.info("Dropping {} {} until the next preset.", wood.name, step);
+            plannedAt = -1;
+        }
+        recover(failure);
+        return false;
     }
 
-    /** Fires the Construct dialogue action. Returns true if the progress interface opened. */
-    private boolean clickConstruct() {
+    /** Returns the failure to recover from, or null once progress has started. */
+    private RecoveryEngine.Failure clickConstructTimed() {
         randomDelay(350, 750);
-        println("[FrameCrafter] Clicking Construct...");
-        boolean clicked = MiniMenu.interact(ComponentAction.DIALOGUE.getType(), 0, -1, DIALOGUE_PARAM3);
-        println("[FrameCrafter] Construct click result: " + clicked);
-        if (!clicked) { Execution.delay(1000); return false; }
-        boolean started = Execution.delayUntil(5000, () -> Interfaces.isOpen(PROGRESS_IF));
-        if (!started) {
-            println("[FrameCrafter] Progress interface never opened, retrying...");
-            return false;
+        log.debug("Clicking Construct...");
+        boolean clicked = client.interact(ComponentAction.DIALOGUE.getType(), 0, -1, DIALOGUE_PARAM3);
+        log.debug("Construct click result: {}", clicked);
+        if (!clicked) return RecoveryEngine.Failure.CLICK_REJECTED;
+        long clickedAt = client.currentTimeMillis();
+        long limit     = timeouts.deadline(AdaptiveTimeouts.Phase.PROGRESS_START, state, currentWood, TIMEOUT_PROGRESS_START);
+        boolean started = client.delayUntil(limit, () -> client.isInterfaceOpen(PROGRESS_IF));
+        learn(AdaptiveTimeouts.Phase.PROGRESS_START, started, client.currentTimeMillis() - clickedAt, limit);
+        return started ? null : RecoveryEngine.Failure.PROGRESS_NEVER_STARTED;
+    }
+
+    /**
+     * Waits for the current batch to finish, returning as soon as the progress interface
+     * closes or the step's input is gone from the backpack. The deadline is the learned
+     * one for this step and wood tier, capped at {@code maxTimeoutMs}. Returns false if the
+     * batch did not finish; a timeout has already been handed to recovery.
+     */
+    private boolean waitForProgress(long maxTimeoutMs) {
+        final WoodType wood = currentWood;
+        long timeoutMs = timeouts.deadline(AdaptiveTimeouts.Phase.BATCH, state, wood, maxTimeoutMs);
+        log.debug("Waiting for crafting to finish (timeout: {} ms)...", timeoutMs);
+        final int inputCol  = inputColumn(state);
+        final int inputHeld = wood == null ? 0 : inventory.count(wood, inputCol);
+        stageFollowUp(inputHeld);
+        CompletionWaiter.Outcome outcome = completion.await(state, timeoutMs,
+            () -> client.isInterfaceOpen(PROGRESS_IF),
+            () -> {
+                inventory.refreshIfDirty(client);
+                int left = wood == null ? 0 : inventory.count(wood, inputCol);
+                speculation.observe(left, client.currentTimeMillis());
+                return left;
+            },
+            speculation::predictedFinishMs,
+            () -> running);
+        if (outcome == CompletionWaiter.Outcome.INPUT_CONSUMED || outcome == CompletionWaiter.Outcome.INTERFACE_CLOSED) {
+            speculation.confirm(client.currentTimeMillis() - completion.lastOvershoot());
+        } else {
+            speculation.cancel();
+        }
+        metrics.record(StepMetrics.Step.WAIT_PROGRESS, state, wood, completion.lastDuration());
+        trace.record(TraceRecorder.BATCH_WAIT, client.currentTimeMillis(), outcome.ordinal(),
+            (int) completion.lastDuration(), (int) completion.lastOvershoot(), 0);
+        if (outcome != CompletionWaiter.Outcome.STOPPED) {
+            learn(AdaptiveTimeouts.Phase.BATCH, outcome != CompletionWaiter.Outcome.TIMED_OUT,
+                completion.lastDuration() - completion.lastOvershoot(), timeoutMs);
         }
+        log.debug("Batch wait: {} in {} ms (overshoot {} ms)", outcome, completion.lastDuration(), completion.lastOvershoot());
+        switch (outcome) {
+            case TIMED_OUT        -> { recover(RecoveryEngine.Failure.PROGRESS_TIMED_OUT); return false; }
+            case STOPPED          -> { return false; }
+            case INTERFACE_CLOSED -> settleDelay(150);   // let the final inventory update land
+            default               -> { }
+        }
+        inventory.refreshIfDirty(client);
+        exported.processed(wood, inputStage(state), inputHeld - (wood == null ? 0 : inventory.count(wood, inputCol)));
+        recovered();
         return true;
     }
 
-    /** Waits for the progress interface 1251 to close, with a safety timeout. */
-    private void waitForProgress(long timeoutMs) {
-        println("[FrameCrafter] Waiting for crafting to finish (timeout: " + (timeoutMs / 1000) + "s)...");
-        long deadline = System.currentTimeMillis() + timeoutMs;
-        while (Interfaces.isOpen(PROGRESS_IF) && System.currentTimeMillis() < deadline && running) {
-            Execution.delay(500);
+    /**
+     * Tells the scheduler what the script will most likely click once this batch is done:
+     * the next planned action's station, or the bank chest when the plan ends here.
+     */
+    private void stageFollowUp(int input) {
+        long expected = completion.expectedMs(state);
+        long now      = client.currentTimeMillis();
+        if (planner.size() > 1 && planner.step(0) == state) {
+            State next = planner.step(1);
+            int   obj  = BatchPlanner.station(next) == BatchPlanner.Station.WORKBENCH ? WORKBENCH_ID : SAWMILL_ID;
+            speculation.begin(next, obj, 300, 800, input, expected, now);
+        } else {
+            speculation.begin(State.LOAD_PRESET, BANK_CHEST_ID, 400, 900, input, expected, now);
         }
-        if (Interfaces.isOpen(PROGRESS_IF)) {
-            println("[FrameCrafter] WARNING: progress timed out, continuing anyway.");
+    }
+
+    /** Humanizing pause before clicking {@code objectId}; a staged follow-up only pays what is still owed. */
+    private void reactionDelay(int objectId, long minMs, long maxMs) {
+        long owed = speculation.claim(state, objectId, client.currentTimeMillis());
+        if (owed < 0) { randomDelay(minMs, maxMs); return; }
+        owed = ticks.alignAction(owed, client.currentTimeMillis());
+        client.delay(owed);
+        metrics.record(StepMetrics.Step.RANDOM_DELAY, state, currentWood, owed);
+    }
+
+    /**
+     * Handles a failed step: backs off for its class and revalidates the real game state
+     * before the retry, or escalates when the circuit breaker trips.
+     */
+    private void recover(RecoveryEngine.Failure failure) {
+        long now = client.currentTimeMillis();
+        RecoveryEngine.Action action = recovery.failed(failure, now);
+        if (failedIn == null) failedIn = state;
+        exported.failure(failure);
+        if (action != RecoveryEngine.Action.RETRY) exported.trip();
+        trace.record(TraceRecorder.RECOVERY, now, failure.ordinal(), action.ordinal(), (int) recovery.backoffMs(), 0);
+        switch (action) {
+            case RETRY -> {
+                log.warn("{} ({}), retrying in {} ms.", failure.label, state, recovery.backoffMs());
+                tickDelay(recovery.backoffMs());
+                revalidate();
+            }
+            case RESET -> {
+                log.warn("{} failures in a row; resetting to the bank chest.", RecoveryEngine.tripStreak());
+                stations.reset();
+                speculation.cancel();
+                inventory.invalidate();
+                state = State.LOAD_PRESET;
+            }
+            case STOP -> {
+                log.warn("Still failing after {} resets; stopping.", recovery.trips() - 1);
+                state = State.DONE;
+            }
         }
-        Execution.delay(600);
+    }
+
+    /**
+     * Re-reads what the game actually shows before a retry: lets a batch that did start
+     * (or a bank that did open) play out, then re-plans from a fresh backpack scan.
+     */
+    private void revalidate() {
+        if (client.isInterfaceOpen(PROGRESS_IF)) {
+            log.debug("Progress is running after all; waiting it out.");
+            client.delayUntil(batchTimeout(state), () -> !client.isInterfaceOpen(PROGRESS_IF));
+        }
+        if (client.isBankOpen()) client.delayUntil(5000, () -> !client.isBankOpen());
+        redetectInventory();
+        if (state == State.LOAD_PRESET) return;
+        state = currentWood != null ? resolveNextState() : State.LOAD_PRESET;
+    }
+
+    /**
+     * A whole step went through -- a preset loaded, or a batch started or finished -- so
+     * closes any failure streak and records how long recovery took. Intermediate sub-steps
+     * such as a menu opening must not call this, or a step that always fails after them
+     * would never build up backoff or trip the breaker.
+     */
+    private void recovered() {
+        failedIn = null;
+        long took = recovery.succeeded(client.currentTimeMillis());
+        if (took < 0) return;
+        metrics.record(StepMetrics.Step.RECOVERY, state, currentWood, took);
+        log.info("Recovered in {} ms.", took);
+    }
+
+    /** Feeds one observed step duration (or a timeout) into the adaptive deadline model. */
+    private void learn(AdaptiveTimeouts.Phase phase, boolean succeeded, long tookMs, long limitMs) {
+        if (succeeded) timeouts.record(phase, state, currentWood, tookMs);
+        else           timeouts.recordTimeout(phase, state, currentWood, limitMs);
+    }
+
+    /** Updates the XP-per-frame estimate for this mode and wood from the cycle that just finished. */
+    private void learnXpPerFrame(WoodType wood) {
+        if (wood == null || cycleStartXp < 0) return;
+        int frames = inventory.frames(wood);
+        int gained = client.constructionXp() - cycleStartXp;
+        if (frames <= 0 || gained <= 0) return;
+        double sample = gained / (double) frames;
+        double[] row  = xpPerFrame[fullPipeline ? 1 : 0];
+        double prev   = row[wood.ordinal()];
+        row[wood.ordinal()] = Double.isNaN(prev) ? sample : prev + 0.2 * (sample - prev);
+        cycleStartXp = -1;
+    }
+
+    /** GP value of whatever the backpack holds for the current wood's stage, or -1 if unpriced. */
+    private long inputValue() {
+        if (currentWood == null) return -1;
+        int id = switch (currentStage) {
+            case LOGS    -> currentWood.logId;
+            case PLANKS  -> currentWood.plankId;
+            case REFINED -> currentWood.refinedId;
+            default      -> -1;
+        };
+        int p = id > 0 ? prices.price(id) : -1;
+        return p < 0 ? -1 : (long) p * inventory.count(currentWood, currentStage.ordinal());
+    }
+
+    /** Profit of the cycle that just finished: frames made minus what the preset cost. */
+    private void recordProfit(WoodType wood) {
+        if (wood == null || cycleInputValue < 0) return;
+        int framePrice = prices.price(wood.frameId);
+        if (framePrice < 0) return;
+        lastBatchProfit = (long) framePrice * inventory.frames(wood) - cycleInputValue;
+        sessionProfit  += lastBatchProfit;
+        anyProfit       = true;
+        cycleInputValue = -1;
+    }
+
+    /** Runs the throughput simulator for every mode/wood pair in the background. */
+    private void startSimulation() {
+        if (simRunning) return;
+        if (simPool == null) {
+            simPool = new java.util.concurrent.ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        ThroughputSimulator.Model model = new ThroughputSimulator.Model().fitFrom(metrics);
+        model.breakBudgetMs = randomAfk ? breaks.budgetMs() : 0;
+        for (int m = 0; m < 2; m++) System.arraycopy(xpPerFrame[m], 0, model.xpPerFrame[m], 0, xpPerFrame[m].length);
+        for (WoodType w : WoodType.values()) {
+            int frame = prices.price(w.frameId), refined = prices.price(w.refinedId), logs = prices.price(w.logId);
+            model.gpPerFrame[0][w.ordinal()] = frame < 0 || refined < 0 ? Double.NaN : frame - refined;
+            model.gpPerFrame[1][w.ordinal()] = frame < 0 || logs    < 0 ? Double.NaN : frame - logs;
+        }
+        ThroughputSimulator.Objective objective = simObjective;
+        simRunning = true;
+        simPool.execute(() -> {
+            try {
+                java.util.List<ThroughputSimulator.Result> ranked = new ThroughputSimulator(model, simPool)
+                    .rank(ThroughputSimulator.allConfigs(), SIM_HOURS, client.currentTimeMillis(), objective);
+                simRankedBy = objective;
+                simResults  = ranked;
+                log.info("Simulation done. Best: {}", simResults.get(0).config().label());
+            } finally {
+                simRunning = false;
+            }
+        });
+    }
+
+    /**
+     * Takes a scheduled AFK break if one is due. Only called before a preset load, so no
+     * station interface is open and no pipeline is split.
+     */
+    private void takeBreakIfDue() {
+        if (!randomAfk) return;
+        long now   = client.currentTimeMillis();
+        long pause = breaks.due(now);
+        if (pause <= 0) return;
+        log.info("AFK break for {} ms ({} of {} min budget used this hour).",
+            pause, breaks.usedInLastHour(now) / 60_000, breaks.budgetMinutes());
+        trace.record(TraceRecorder.BREAK, now, (int) pause);
+        client.delay(pause);
+        breaks.taken(now, pause);
+        exported.breakTaken(pause);
+    }
+
+    /** Fixed upper-bound batch timeout for a processing state. */
+    private static long batchTimeout(State s) {
+        return switch (s) {
+            case LOGS_TO_PLANKS    -> TIMEOUT_LOGS_TO_PLANKS;
+            case PLANKS_TO_REFINED -> TIMEOUT_PLANKS_TO_REFINED;
+            default                -> TIMEOUT_REFINED_TO_FRAMES;
+        };
+    }
+
+    /** Snapshot column holding the input items consumed by a processing state. */
+    private static int inputColumn(State s) {
+        return switch (s) {
+            case LOGS_TO_PLANKS    -> InventorySnapshot.COL_LOGS;
+            case PLANKS_TO_REFINED -> InventorySnapshot.COL_PLANKS;
+            default                -> InventorySnapshot.COL_REFINED;
+        };
     }
 
     private void logout() {
-        MiniMenu.interact(ComponentAction.COMPONENT.getType(), 1, 8 | (182 << 16), 0);
-        Execution.delay(3000);
+        stations.reset();
+        client.interact(ComponentAction.COMPONENT.getType(), 1, 8 | (182 << 16), 0);
+        client.delay(3000);
+    }
+
+    /** Pause before the next click, snapped to the tick grid once the tick phase is known. */
+    private void tickDelay(long ms) {
+        client.delay(ticks.alignAction(ms, client.currentTimeMillis()));
+    }
+
+    /** Pause before reading game state, ending just after a tick boundary once the phase is known. */
+    private void settleDelay(long ms) {
+        client.delay(ticks.alignObserve(ms, client.currentTimeMillis()));
+    }
+
+    /** Backpack change event: stamps the snapshot dirty and samples the tick phase. */
+    private void backpackChanged() {
+        long now = client.currentTimeMillis();
+        inventory.markDirty(now);
+        ticks.observe(now);
     }
 
     private String formatTime(long ms) {
@@ -373,7 +823,137 @@ public class BreezysFrameMaker extends LoopingScript {
     }
 
     private void randomDelay(long minMs, long maxMs) {
-        Execution.delay(minMs + (long)(Math.random() * (maxMs - minMs)));
+        long ms = ticks.alignAction(minMs + (long)(Math.random() * (maxMs - minMs)), client.currentTimeMillis());
+        client.delay(ms);
+        metrics.record(StepMetrics.Step.RANDOM_DELAY, state, currentWood, ms);
+    }
+
+    /** Dumps the step-latency histograms to CSV/JSON once per session and clears them. */
+    private void exportMetrics() {
+        if (metrics.overall(StepMetrics.Step.OPEN_MENU).count() > 0
+                || metrics.overall(StepMetrics.Step.LOAD_PRESET).count() > 0) {
+            try {
+                log.info("Step latencies written to {}", metrics.export(dataDir));
+            } catch (java.io.IOException e) {
+                log.warn("Could not export step latencies: {}", e.getMessage());
+            }
+        }
+        metrics.reset();
+    }
+
+    private void saveTimeouts() {
+        try {
+            timeouts.save(timeoutsFile);
+        } catch (java.io.IOException e) {
+            log.warn("Could not save learned timeouts: {}", e.getMessage());
+        }
+    }
+
+    /** Pushes the session gauges to the exported metrics; called on every state transition. */
+    private void publishMetrics() {
+        long elapsed = startTimeMs > 0 ? client.currentTimeMillis() - startTimeMs : 0;
+        exported.session(running, state, startTimeMs > 0 ? client.constructionXp() - startXp : 0, elapsed);
+    }
+
+    /** Starts or stops the localhost /metrics endpoint (panel checkbox). */
+    private void setEndpoint(boolean on) {
+        if (on == endpoint.isRunning()) return;
+        if (!on) {
+            endpoint.stop();
+            log.info("Metrics endpoint stopped.");
+            return;
+        }
+        try {
+            endpoint.start();
+            log.info("Serving metrics at http://localhost:{}/metrics", endpoint.port());
+        } catch (java.io.IOException e) {
+            log.warn("Could not start metrics endpoint: {}", e.getMessage());
+        }
+    }
+
+    /** Writes the session position, counters and learned timings to checkpointFile. */
+    private void saveCheckpoint() {
+        SessionCheckpoint cp = new SessionCheckpoint();
+        cp.savedAtMs       = System.currentTimeMillis();
+        cp.running         = running;
+        cp.state           = state;
+        cp.wood            = currentWood;
+        cp.stage           = currentStage;
+        cp.fullPipeline    = fullPipeline;
+        cp.totalBatches    = totalBatches;
+        cp.startXp         = startXp;
+        cp.elapsedMs       = startTimeMs > 0 ? client.currentTimeMillis() - startTimeMs : 0;
+        cp.sessionProfit   = sessionProfit;
+        cp.lastBatchProfit = lastBatchProfit;
+        cp.anyProfit       = anyProfit;
+        for (int m = 0; m < 2; m++) System.arraycopy(xpPerFrame[m], 0, cp.xpPerFrame[m], 0, xpPerFrame[m].length);
+        for (State st : State.values()) cp.expectedMs[st.ordinal()] = completion.expectedMs(st);
+        try {
+            cp.save(checkpointFile);
+        } catch (java.io.IOException e) {
+            log.warn("Could not save checkpoint: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Warm restart: restores learned timings from the last checkpoint and, if that session
+     * was still running and the checkpoint is fresh, its counters and position. Only plain
+     * fields are touched here; the position is revalidated against the live game by
+     * resume() at the start of the first loop, never on the activation thread.
+     */
+    private void restoreCheckpoint() {
+        SessionCheckpoint cp;
+        try {
+            cp = SessionCheckpoint.load(checkpointFile);
+        } catch (java.io.IOException e) {
+            log.warn("Could not read checkpoint: {}", e.getMessage());
+            return;
+        }
+        if (cp == null) return;
+        for (int m = 0; m < 2; m++) System.arraycopy(cp.xpPerFrame[m], 0, xpPerFrame[m], 0, xpPerFrame[m].length);
+        for (State st : State.values()) completion.setExpectedMs(st, cp.expectedMs[st.ordinal()]);
+        if (!cp.running || !cp.isFresh(System.currentTimeMillis())) {
+            log.info("Loaded learned timings from the last session.");
+            return;
+        }
+
+        long now = client.currentTimeMillis();
+        fullPipeline    = cp.fullPipeline;
+        totalBatches    = cp.totalBatches;
+        startXp         = cp.startXp;
+        startTimeMs     = now - cp.elapsedMs;
+        sessionProfit   = cp.sessionProfit;
+        lastBatchProfit = cp.lastBatchProfit;
+        anyProfit       = cp.anyProfit;
+        breaks.start(now);
+        recovery.reset();
+        failedIn = null;
+        speculation.cancel();
+        stations.reset();
+        planner.clearRefusals();
+
+        state         = cp.state;
+        currentWood   = cp.wood;
+        currentStage  = cp.stage;
+        resumePending = true;
+        running       = true;
+        log.info("Resuming session at batch {} from {}.", totalBatches, cp.state);
+    }
+
+    /**
+     * First loop after a warm restart: lets a batch that is still running finish, then
+     * re-plans from a fresh backpack scan and picks up from there.
+     */
+    private void resume() {
+        resumePending = false;
+        State saved = state;
+        if (client.isInterfaceOpen(PROGRESS_IF)) {
+            log.info("A batch is still running; waiting for it before resuming.");
+            client.delayUntil(batchTimeout(saved), () -> !client.isInterfaceOpen(PROGRESS_IF));
+        }
+        redetectInventory();
+        state = currentWood != null ? resolveNextState() : State.LOAD_PRESET;
+        log.info("Resumed: checkpoint was {}, resuming at {}.", saved, state);
     }
 
     // =========================================================================
@@ -381,16 +961,89 @@ public class BreezysFrameMaker extends LoopingScript {
     // =========================================================================
     @Override
     public void onActivation() {
-        println("[FrameCrafter] Loaded. Press Start in the panel.");
-        Client.setAntiAFK(true);
+        log.start();
+        log.info("Loaded. Press Start in the panel.");
+        client.setAntiAfk(true);
+        prices.start();
         running = false;
         state   = State.IDLE;
+        try {
+            int keys = timeouts.load(timeoutsFile);
+            if (keys > 0) log.info("Loaded learned timeouts for {} steps.", keys);
+        } catch (java.io.IOException e) {
+            log.warn("Could not load learned timeouts: {}", e.getMessage());
+        }
+        restoreCheckpoint();
+        try {
+            exported.register();
+        } catch (IllegalStateException e) {
+            log.warn("{}", e.getMessage());
+        }
+        publishMetrics();
+    }
+
+    /** Starts a run from the bank chest. Called by the panel's Start button. */
+    void startSession() {
+        startXp     = client.constructionXp();
+        startTimeMs = client.currentTimeMillis();
+        sessionProfit = 0;
+        anyProfit     = false;
+        speculation.cancel();
+        breaks.start(startTimeMs);
+        recovery.reset();
+        failedIn = null;
+        planner.clearRefusals();
+        resumePending = false;
+        // A pending Stop export clears the histograms itself, on the loop thread, before the
+        // first step of this session is recorded
+        if (!stopPending) metrics.reset();
+        running     = true;
+        state       = State.LOAD_PRESET;
+        log.info("Started. Pipeline: {}", fullPipeline ? "FULL" : "FRAMES ONLY");
+        if (recordTrace) startTrace();
+        publishMetrics();
+    }
+
+    private void startTrace() {
+        String stamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        try {
+            trace.start(dataDir.resolve("trace-" + stamp + ".bin"));
+            log.info("Recording trace to {}", trace.file());
+        } catch (java.io.IOException e) {
+            log.warn("Could not start trace: {}", e.getMessage());
+        }
+    }
+
+    private void stopTrace() {
+        if (!trace.isRecording()) return;
+        trace.stop();
+        log.info("Trace closed: {} records, {} dropped.", trace.written(), trace.dropped());
+    }
+
+    void setFullPipeline(boolean fullPipeline) {
+        this.fullPipeline = fullPipeline;
     }
 
+    State   state()        { return state; }
+    boolean isRunning()    { return running; }
+    int     totalBatches() { return totalBatches; }
+    RecoveryEngine recovery() { return recovery; }
+    StationChain   stations() { return stations; }
+
     @Override
     public void onDeactivation() {
-        println("[FrameCrafter] Unloaded. Total batches: " + totalBatches);
-        Client.setAntiAFK(false);
+        log.info("Unloaded. Total batches: {}", totalBatches);
+        if (startTimeMs > 0) saveCheckpoint();
+        exportMetrics();
+        saveTimeouts();
+        stopTrace();
+        if (simPool != null) simPool.shutdownNow();
+        simPool = null;
+        client.setAntiAfk(false);
+        prices.stop();
+        endpoint.stop();
+        exported.unregister();
+        log.shutdown();
     }
 
     // =========================================================================
@@ -398,37 +1051,175 @@ public class BreezysFrameMaker extends LoopingScript {
     // =========================================================================
     private class FrameCrafterUI extends ScriptGraphicsContext {
 
+        // Skills, rates and formatted lines are sampled at this rate instead of every frame
+        private static final long     STATS_INTERVAL_MS = 1000;
+        private static final StepMetrics.Step[] STEPS   = StepMetrics.Step.values();
+        private static final String   SIMULATING_LINE   = "Simulating " + SIM_HOURS + " h per configuration...";
+        private static final String[] BUDGET_LABELS     = java.util.Arrays.stream(BreakScheduler.BUDGET_CHOICES_MIN)
+            .mapToObj(m -> "Break budget: " + m + " min / hour").toArray(String[]::new);
+        private static final String[] OBJECTIVE_LABELS  = java.util.Arrays.stream(ThroughputSimulator.Objective.values())
+            .map(o -> "Objective: " + o.name()).toArray(String[]::new);
+
+        private long lastSampleMs = -STATS_INTERVAL_MS;
+
+        // Status block -- rebuilt only when one of its inputs changes
+        private State    shownState;
+        private WoodType shownWood;
+        private Stage    shownStage;
+        private boolean  shownRunning;
+        private int      shownBatches  = -1;
+        private int      shownRebuilds = -1;
+        private int      shownPlan     = -1;
+        private String   statusLine, stateLine, woodLine, stageLine, batchesLine, stockLine, planLine;
+
+        // Stats block -- rebuilt on the STATS_INTERVAL_MS schedule
+        private String levelLine = "", xpLine = "", gainedLine = "", rateLine = "", timeLine = "", overshootLine = "";
+        private String gpLine = "", priceLine = "", speculationLine = "", chainLine = "", tickLine = "", breakLine = "", recoveryLine = "";
+        private String woodWaitLine, timeoutLine, traceLine = "", endpointLine = "";
+        private java.util.List<ThroughputSimulator.Result> shownSim;
+        private final String[] simLines = new String[3];
+        private String recommendLine;
+        private final String[] stepLines = new String[STEPS.length];
+        private final Object[] lineArg   = new Object[1];   // reused so Text() needs no varargs array
+
         FrameCrafterUI(net.botwithus.rs3.script.ScriptConsole console, BreezysFrameMaker ignored) {
             super(console);
+            java.util.Arrays.fill(stepLines, "");
+        }
+
+        /** Re-formats the status lines when the state machine moved on since the last frame. */
+        private void refreshStatus() {
+            if (shownState == state && shownWood == currentWood && shownStage == currentStage
+                    && shownRunning == running && shownBatches == totalBatches
+                    && shownRebuilds == inventory.rebuilds() && shownPlan == planner.revision()) return;
+            shownState    = state;
+            shownWood     = currentWood;
+            shownStage    = currentStage;
+            shownRunning  = running;
+            shownBatches  = totalBatches;
+            shownRebuilds = inventory.rebuilds();
+            shownPlan     = planner.revision();
+
+            statusLine  = "Status  : " + (running ? "RUNNING" : "STOPPED");
+            stateLine   = "State   : " + state.name();
+            woodLine    = "Wood    : " + (currentWood  != null ? currentWood.name    : "None");
+            stageLine   = "Stage   : " + (currentStage != null ? currentStage.name() : "None");
+            batchesLine = "Batches : " + totalBatches;
+            stockLine   = currentWood == null ? null : String.format("Stock   : %d logs / %d planks / %d refined / %d frames",
+                inventory.logs(currentWood), inventory.planks(currentWood),
+                inventory.refined(currentWood), inventory.frames(currentWood));
+            planLine    = "Plan    : " + planner.describe() + "  (" + planner.stationVisits() + " station visits)";
+        }
+
+        /** Samples skills, derived rates and step latencies; runs at most once per STATS_INTERVAL_MS. */
+        private void refreshStats(long now) {
+            if (now - lastSampleMs < STATS_INTERVAL_MS) return;
+            lastSampleMs = now;
+
+            int    curXp     = client.constructionXp();
+            int    curLvl    = client.constructionLevel();
+            int    xpGained  = curXp - startXp;
+            long   elapsedMs = now - startTimeMs;
+            double hrs       = elapsedMs / 3_600_000.0;
+            int    xpPerHr   = hrs > 0 ? (int)(xpGained / hrs) : 0;
+
+            levelLine     = "Construction  : " + curLvl;
+            xpLine        = String.format("Current XP    : %,d", curXp);
+            gainedLine    = String.format("XP Gained     : %,d", xpGained);
+            rateLine      = String.format("XP / hr       : %,d", xpPerHr);
+            gpLine        = anyProfit
+                ? String.format("GP / hr       : %,d   (last batch %,d)", hrs > 0 ? (long) (sessionProfit / hrs) : 0, lastBatchProfit)
+                : "GP / hr       : ?   (no priced batch yet)";
+            long priceAge = prices.lastRefreshMs() > 0 ? (System.currentTimeMillis() - prices.lastRefreshMs()) / 60_000 : -1;
+            priceLine     = priceAge >= 0
+                ? "Prices        : " + prices.size() + " items via " + prices.lastSource() + ", " + priceAge + " min old"
+                : prices.size() > 0
+                ? "Prices        : " + prices.size() + " items, bundled static estimates only"
+                : "Prices        : none yet (no source reachable, no snapshot)";
+            timeLine      = "Time Running  : " + (startTimeMs > 0 ? formatTime(elapsedMs) : "00:00:00");
+            traceLine     = "  Trace  : " + trace.written() + " records written, " + trace.dropped() + " dropped";
+            endpointLine  = "  Scrape : http://localhost:" + endpoint.port() + "/metrics";
+            overshootLine = "Wait overshoot: " + completion.lastOvershoot() + " ms (avg " + completion.avgOvershoot() + " ms)";
+            long breakMs    = breaks.totalMs();
+            long activeMs   = Math.max(1, elapsedMs - breakMs);
+            long nextIn     = breaks.dueAtMs() - now;
+            breakLine       = String.format("  %d breaks, %s (%.1f%% of session), cost ~%,d XP; next in %s",
+                breaks.taken(), formatTime(breakMs), startTimeMs > 0 && elapsedMs > 0 ? 100.0 * breakMs / elapsedMs : 0.0,
+                (long) ((double) xpGained * breakMs / activeMs), nextIn > 0 ? formatTime(nextIn) : "next batch");
+            recoveryLine    = String.format("Recovery      : %d click / %d menu / %d start / %d timeout, %d trips, last %s",
+                recovery.total(RecoveryEngine.Failure.CLICK_REJECTED), recovery.total(RecoveryEngine.Failure.INTERFACE_NEVER_OPENED),
+                recovery.total(RecoveryEngine.Failure.PROGRESS_NEVER_STARTED), recovery.total(RecoveryEngine.Failure.PROGRESS_TIMED_OUT),
+                recovery.trips(), recovery.lastRecoveryMs() < 0 ? "-" : recovery.lastRecoveryMs() + " ms");
+            tickLine        = ticks.locked()
+                ? String.format("Game tick     : phase %d ms, lock %.2f over %d changes", ticks.phaseMs(), ticks.lockStrength(), ticks.samples())
+                : "Game tick     : learning (" + ticks.samples() + " changes)";
+            chainLine       = "Menu chaining : " + stations.reused() + " reused / " + stations.opened() + " opened";
+            speculationLine = String.format("Pre-staged    : %d fired / %d dropped / %d missed, %.1f s saved, finish error %d ms",
+                speculation.fired(), speculation.dropped(), speculation.missed(), speculation.savedMs() / 1000.0,
+                speculation.avgFinishErrorMs());
+
+            for (int i = 0; i < STEPS.length; i++) {
+                LatencyHistogram h = metrics.overall(STEPS[i]);
+                stepLines[i] = String.format("%-11s %5d  %5d  %5d  %4d  %s", STEPS[i].label,
+                    h.percentile(0.50), h.percentile(0.95), h.percentile(0.99), h.count(), formatTime(h.sum()));
+            }
+            if (currentWood != null) {
+                LatencyHistogram w = metrics.byWood(StepMetrics.Step.WAIT_PROGRESS, currentWood);
+                woodWaitLine = currentWood.name + " batch wait p50/p95: " + w.percentile(0.50) + " / " + w.percentile(0.95) + " ms";
+            } else {
+                woodWaitLine = null;
+            }
+            State step = state == State.LOAD_PRESET || state == State.IDLE || state == State.DONE ? null : state;
+            timeoutLine = step == null || currentWood == null ? null : "Deadlines     : menu "
+                + timeouts.deadline(AdaptiveTimeouts.Phase.MENU_OPEN, step, currentWood, TIMEOUT_MENU_OPEN) + " / start "
+                + timeouts.deadline(AdaptiveTimeouts.Phase.PROGRESS_START, step, currentWood, TIMEOUT_PROGRESS_START) + " / batch "
+                + timeouts.deadline(AdaptiveTimeouts.Phase.BATCH, step, currentWood, batchTimeout(step)) + " ms";
         }
 
         @Override
         public void drawSettings() {
+            refreshStatus();
+            refreshStats(client.currentTimeMillis());
+
             ImGui.Begin("Fort Forinthry Frame Crafter", 0);
 
             // ---- Status ----
-            ImGui.Text("Status  : %s", running ? "RUNNING" : "STOPPED");
-            ImGui.Text("State   : %s", state.name());
-            ImGui.Text("Wood    : %s", currentWood  != null ? currentWood.name    : "None");
-            ImGui.Text("Stage   : %s", currentStage != null ? currentStage.name() : "None");
-            ImGui.Text("Batches : %d", totalBatches);
+            text(statusLine);
+            text(stateLine);
+            text(woodLine);
+            text(stageLine);
+            text(batchesLine);
+            if (stockLine != null) text(stockLine);
+            text(planLine);
 
             ImGui.Separator();
 
             // ---- Pipeline toggle + preset instructions ----
             fullPipeline = ImGui.Checkbox("Full Pipeline (Logs to Frames)", fullPipeline);
             if (fullPipeline) {
-                ImGui.Text("  Route  : Sawmill, Sawmill, Workbench");
-                ImGui.Text("  Preset : Fill preset with raw logs");
+                text("  Route  : Sawmill, Sawmill, Workbench");
+                text("  Preset : Fill preset with raw logs");
             } else {
-                ImGui.Text("  Route  : Workbench only");
-                ImGui.Text("  Preset : Fill preset with refined planks");
+                text("  Route  : Workbench only");
+                text("  Preset : Fill preset with refined planks");
             }
 
             ImGui.Separator();
 
             // ---- AFK toggle ----
-            randomAfk = ImGui.Checkbox("Random AFK breaks (1/50 chance)", randomAfk);
+            randomAfk = ImGui.Checkbox("AFK breaks (between batches)", randomAfk);
+            if (randomAfk) {
+                if (ImGui.Button(BUDGET_LABELS[breaks.budgetChoice()])) breaks.nextBudget();
+                text(breakLine);
+            }
+            recordTrace = ImGui.Checkbox("Record session trace (binary, for TraceReplay)", recordTrace);
+            boolean debug = ImGui.Checkbox("Debug logging", log.level() == ScriptLog.Level.DEBUG);
+            log.setLevel(debug ? ScriptLog.Level.DEBUG : ScriptLog.Level.INFO);
+            boolean toFile = ImGui.Checkbox("Log to file (frame-maker.log, rolling)", log.file() != null);
+            log.setFile(toFile ? logFile : null);
+            if (trace.isRecording()) text(traceLine);
+            setEndpoint(ImGui.Checkbox("Prometheus endpoint (localhost only)", endpoint.isRunning()));
+            if (endpoint.isRunning()) text(endpointLine);
 
             ImGui.Separator();
 
@@ -436,36 +1227,94 @@ public class BreezysFrameMaker extends LoopingScript {
             if (running) {
                 if (ImGui.Button("Stop")) {
                     running = false;
-                    println("[FrameCrafter] Stopped by user.");
+                    log.info("Stopped by user.");
+                    publishMetrics();
+                    stopTrace();
+                    stopPending = true;   // the loop may still be finishing a step: it writes the files after it
                 }
             } else {
                 if (ImGui.Button("Start")) {
-                    startXp            = new Skill(Skills.CONSTRUCTION).getExperience();
-                    startTimeMs        = System.currentTimeMillis();
-                    running            = true;
-                    state              = State.LOAD_PRESET;
-                    println("[FrameCrafter] Started. Pipeline: " + (fullPipeline ? "FULL" : "FRAMES ONLY"));
+                    startSession();
+                    lastSampleMs = -STATS_INTERVAL_MS;   // show the new session's numbers straight away
                 }
             }
 
             ImGui.Separator();
 
             // ---- XP / Stats ----
-            int    curXp     = new Skill(Skills.CONSTRUCTION).getExperience();
-            int    curLvl    = new Skill(Skills.CONSTRUCTION).getLevel();
-            int    xpGained  = curXp - startXp;
-            long   elapsedMs = System.currentTimeMillis() - startTimeMs;
-            double hrs       = elapsedMs / 3_600_000.0;
-            int    xpPerHr   = hrs > 0 ? (int)(xpGained / hrs) : 0;
+            text(levelLine);
+            text(xpLine);
+            text(gainedLine);
+            text(rateLine);
+            text(gpLine);
+            text(priceLine);
+            text(timeLine);
+            text(overshootLine);
+            text(speculationLine);
+            text(chainLine);
+            text(tickLine);
+            text(recoveryLine);
 
-            ImGui.Text("Construction  : %d", curLvl);
-            ImGui.Text("Current XP    : %,d", curXp);
-            ImGui.Text("XP Gained     : %,d", xpGained);
-            ImGui.Text("XP / hr       : %,d", xpPerHr);
+            ImGui.Separator();
 
-            ImGui.Text("Time Running  : %s", startTimeMs > 0 ? formatTime(elapsedMs) : "00:00:00");
+            // ---- Step latencies ----
+            text("Step         p50    p95    p99     n   total");
+            for (String line : stepLines) text(line);
+            if (woodWaitLine != null) text(woodWaitLine);
+            if (timeoutLine  != null) text(timeoutLine);
+
+            ImGui.Separator();
+
+            // ---- Throughput simulator ----
+            if (ImGui.Button(OBJECTIVE_LABELS[simObjective.ordinal()])) {
+                ThroughputSimulator.Objective[] all = ThroughputSimulator.Objective.values();
+                simObjective = all[(simObjective.ordinal() + 1) % all.length];
+            }
+            if (simRunning) {
+                text(SIMULATING_LINE);
+            } else if (ImGui.Button("Simulate modes / tiers")) {
+                startSimulation();
+            }
+            refreshSim();
+            if (recommendLine != null) {
+                text(recommendLine);
+                for (String line : simLines) if (line != null) text(line);
+                ThroughputSimulator.Config best = shownSim.get(0).config();
+                if (best.fullPipeline() != fullPipeline && ImGui.Button("Apply recommended mode")) {
+                    fullPipeline = best.fullPipeline();
+                }
+            }
 
             ImGui.End();
         }
+
+        /**
+         * Draws one line verbatim. The line is passed as the argument of a fixed "%s" format, so
+         * a '%' in cached or file-derived text can never be read as a format specifier.
+         */
+        private void text(String line) {
+            lineArg[0] = line;
+            ImGui.Text("%s", lineArg);
+        }
+
+        /** Formats the top simulator results once per new result set. */
+        private void refreshSim() {
+            java.util.List<ThroughputSimulator.Result> results = simResults;
+            if (results == null || results == shownSim) return;
+            shownSim = results;
+            ThroughputSimulator.Result best = results.get(0);
+            recommendLine = "Recommended   : " + best.config().label();
+            if (simRankedBy == ThroughputSimulator.Objective.XP && Double.isNaN(best.xpPerHour())) {
+                recommendLine += "  (no XP/frame learned yet: ranked by frames)";
+            }
+            for (int i = 0; i < simLines.length; i++) {
+                if (i >= results.size()) { simLines[i] = null; continue; }
+                ThroughputSimulator.Result r = results.get(i);
+                simLines[i] = String.format("  %d. %-24s %,6.0f frames/h  %s XP/h  %s GP/h%s", i + 1, r.config().label(),
+                    r.framesPerHour(), Double.isNaN(r.xpPerHour()) ? "?" : String.format("%,.0f", r.xpPerHour()),
+                    Double.isNaN(r.gpPerHour()) ? "?" : String.format("%,.0f", r.gpPerHour()),
+                    r.measured() ? "" : "  (tier not timed yet)");
+            }
+        }
     }
 }
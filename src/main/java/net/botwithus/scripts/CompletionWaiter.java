@@ -0,0 +1,107 @@
+package net.botwithus.scripts;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Completion wait for the crafting progress interface.
+ *
+ * A batch counts as finished as soon as EITHER the progress interface closes OR the
+ * backpack holds no more input for the step (the last output item has landed).
+ * Polling is coarse while the batch is far from its predicted finish and tightens
+ * once it gets close. The prediction is the caller's (the SpeculativeScheduler's, which
+ * starts from the running average of previous waits kept here per step and refines it
+ * from the consumption rate); with no prediction every poll is fine.
+ *
+ * Once the TickClock is locked, polls follow the tick grid instead: one poll just
+ * after each boundary while far from the finish, and a short burst of fine polls
+ * right after each boundary near it -- nothing can change mid-tick.
+ *
+ * Overshoot = time the wait returned minus the real completion time, where the
+ * real completion time is the last backpack change event seen during the wait
+ * (falls back to the detection poll when no event arrived).
+ */
+final class CompletionWaiter {
+
+    enum Outcome { INPUT_CONSUMED, INTERFACE_CLOSED, TIMED_OUT, STOPPED }
+
+    private static final long COARSE_POLL_MS = 300;
+    private static final long FINE_POLL_MS   = 40;
+    private static final long FINE_WINDOW_MS = 1500;   // switch to fine polling this close to the predicted finish
+    private static final double EWMA_ALPHA   = 0.3;
+    private static final long POST_TICK_MS   = 160;    // keep fine polling this long after a tick boundary
+
+    private final GameClient        client;
+    private final InventorySnapshot inventory;
+    private final TickClock         ticks;
+    private final long[] expectedMs = new long[BreezysFrameMaker.State.values().length];
+
+    private Outcome lastOutcome   = null;
+    private long    lastDuration  = 0;
+    private long    lastOvershoot = 0;
+    private long    totalOvershoot = 0;
+    private int     waits         = 0;
+
+    CompletionWaiter(GameClient client, InventorySnapshot inventory, TickClock ticks) {
+        this.client    = client;
+        this.inventory = inventory;
+        this.ticks     = ticks;
+    }
+
+    /**
+     * Blocks until the batch for {@code step} completes or the timeout expires.
+     *
+     * @param progressOpen     true while the progress interface is open
+     * @param remainingInput   input items still in the backpack (read from the snapshot)
+     * @param finishAtMs       predicted finish on the client clock, -1 if unknown; read after remainingInput
+     * @param keepGoing        false aborts the wait (script stopped)
+     */
+    Outcome await(BreezysFrameMaker.State step, long timeoutMs, BooleanSupplier progressOpen,
+                  IntSupplier remainingInput, LongSupplier finishAtMs, BooleanSupplier keepGoing) {
+        long start    = client.currentTimeMillis();
+        long deadline = start + timeoutMs;
+        Outcome outcome;
+
+        while (true) {
+            if (!keepGoing.getAsBoolean())           { outcome = Outcome.STOPPED;          break; }
+            if (remainingInput.getAsInt() <= 0)      { outcome = Outcome.INPUT_CONSUMED;   break; }
+            if (!progressOpen.getAsBoolean())        { outcome = Outcome.INTERFACE_CLOSED; break; }
+            long now = client.currentTimeMillis();
+            if (now >= deadline)                     { outcome = Outcome.TIMED_OUT;        break; }
+
+            long finishAt = finishAtMs.getAsLong();
+            boolean nearFinish = finishAt < 0 || finishAt - now <= FINE_WINDOW_MS;
+            long sinceTick = ticks.sinceBoundaryMs(now);
+            long sleep;
+            if (sinceTick < 0)                             sleep = nearFinish ? FINE_POLL_MS : COARSE_POLL_MS;
+            else if (nearFinish && sinceTick < POST_TICK_MS) sleep = FINE_POLL_MS;
+            else                                           sleep = ticks.alignObserve(0, now);
+            client.delay(Math.min(sleep, deadline - now));
+        }
+
+        long end = client.currentTimeMillis();
+        long completedAt = inventory.lastChangeMs();
+        lastOutcome   = outcome;
+        lastDuration  = end - start;
+        lastOvershoot = completedAt >= start && completedAt <= end ? end - completedAt : 0;
+
+        if (outcome == Outcome.INPUT_CONSUMED || outcome == Outcome.INTERFACE_CLOSED) {
+            long actual = completedAt >= start ? completedAt - start : lastDuration;
+            long prev   = expectedMs[step.ordinal()];
+            expectedMs[step.ordinal()] = prev == 0 ? actual : (long) (prev + EWMA_ALPHA * (actual - prev));
+            totalOvershoot += lastOvershoot;
+            waits++;
+        }
+        return outcome;
+    }
+
+    Outcome lastOutcome()    { return lastOutcome; }
+    long    lastDuration()   { return lastDuration; }
+    long    lastOvershoot()  { return lastOvershoot; }
+    long    avgOvershoot()   { return waits > 0 ? totalOvershoot / waits : 0; }
+    long    expectedMs(BreezysFrameMaker.State step) { return expectedMs[step.ordinal()]; }
+
+    /** Seeds the running average for a step, e.g. from a session checkpoint. */
+    void setExpectedMs(BreezysFrameMaker.State step, long ms) { expectedMs[step.ordinal()] = Math.max(0, ms); }
+}
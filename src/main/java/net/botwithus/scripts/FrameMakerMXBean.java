@@ -0,0 +1,30 @@
+package net.botwithus.scripts;
+
+import java.util.Map;
+
+/**
+ * Read-only monitoring view of one script instance, registered with the platform
+ * MBeanServer as {@code net.botwithus.scripts:type=FrameMaker,name=<script name>}.
+ *
+ * Public only because JMX requires it; implemented by ScriptMetrics.
+ */
+public interface FrameMakerMXBean {
+
+    boolean isRunning();
+    String  getState();
+    long    getBatches();
+    long    getXpGained();
+    long    getXpPerHour();
+    long    getSessionSeconds();
+    long    getBreakSeconds();
+    long    getBreakerTrips();
+
+    /** Input items converted, keyed {@code "<wood>/<stage>"}. */
+    Map<String, Long> getItemsProcessed();
+
+    /** Step failures by RecoveryEngine failure class. */
+    Map<String, Long> getFailures();
+
+    /** p95 latency per StepMetrics step, in ms. */
+    Map<String, Long> getStepP95Millis();
+}
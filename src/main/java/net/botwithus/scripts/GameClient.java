@@ -0,0 +1,41 @@
+package net.botwithus.scripts;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Everything the script needs from the game client, behind one seam.
+ *
+ * The live implementation forwards to the static BotWithUs APIs (MiniMenu, Interfaces,
+ * Backpack, Bank, Skill, Execution). A deterministic in-memory fake lives in the jmh
+ * source set so the state machine can be benchmarked without a client attached.
+ */
+interface GameClient {
+
+    /** Receives one backpack slot at a time; lets the snapshot read without a List per call. */
+    interface ItemSink {
+        void accept(int itemId, int amount);
+    }
+
+    boolean interact(int actionType, int param1, int param2, int param3);
+
+    boolean isInterfaceOpen(int interfaceId);
+
+    boolean isBankOpen();
+
+    void forEachBackpackItem(ItemSink sink);
+
+    /** Registers a callback fired whenever the backpack contents change. */
+    void onBackpackChange(Runnable listener);
+
+    int constructionXp();
+
+    int constructionLevel();
+
+    void setAntiAfk(boolean enabled);
+
+    long currentTimeMillis();
+
+    void delay(long ms);
+
+    boolean delayUntil(long timeoutMs, BooleanSupplier condition);
+}
@@ -0,0 +1,110 @@
+package net.botwithus.scripts;
+
+/**
+ * Single-pass backpack snapshot.
+ *
+ * Every item ID from the WoodType table is resolved through a flat lookup array
+ * (item id -> packed wood/column code) built once at class load. A rebuild walks
+ * the backpack once and bumps a fixed int[] of counters, so reading any
+ * tier/stage count afterwards is a plain array load with no client query.
+ *
+ * The snapshot is only rebuilt when marked dirty -- by the inventory update
+ * event or explicitly after a processing step.
+ */
+final class InventorySnapshot {
+
+    // Column layout per wood tier: the three Stage ordinals, then finished frames
+    static final int COL_LOGS    = 0;
+    static final int COL_PLANKS  = 1;
+    static final int COL_REFINED = 2;
+    static final int COL_FRAMES  = 3;
+    private static final int COLUMNS = 4;
+
+    static final int BACKPACK_INVENTORY_ID = 93;
+
+    private static final BreezysFrameMaker.WoodType[] WOODS = BreezysFrameMaker.WoodType.values();
+
+    // item id -> (wood ordinal * COLUMNS + column) + 1, 0 = not a wood item
+    private static final short[] LOOKUP;
+
+    static {
+        int maxId = 0;
+        for (BreezysFrameMaker.WoodType w : WOODS) {
+            maxId = Math.max(maxId, Math.max(Math.max(w.logId, w.plankId), Math.max(w.refinedId, w.frameId)));
+        }
+        LOOKUP = new short[maxId + 1];
+        for (BreezysFrameMaker.WoodType w : WOODS) {
+            register(w.logId,     w, COL_LOGS);
+            register(w.plankId,   w, COL_PLANKS);
+            register(w.refinedId, w, COL_REFINED);
+            register(w.frameId,   w, COL_FRAMES);
+        }
+    }
+
+    private static void register(int itemId, BreezysFrameMaker.WoodType w, int column) {
+        if (itemId <= 0) return;   // unconfirmed IDs are left out of the table
+        LOOKUP[itemId] = (short) (w.ordinal() * COLUMNS + column + 1);
+    }
+
+    private final int[] counts = new int[WOODS.length * COLUMNS];
+    private final GameClient.ItemSink sink = this::add;
+    private volatile boolean dirty = true;
+    private volatile long    lastChangeMs = 0;   // wall-clock time of the last backpack change event
+    private int  rebuilds    = 0;
+    private long lastBuiltMs = 0;
+
+    /** Called from the inventory update event: stamps the change and flags a rebuild. */
+    void markDirty(long nowMs) {
+        lastChangeMs = nowMs;
+        dirty = true;
+    }
+
+    /** Flags a rebuild without recording a change, for explicit re-reads from the loop. */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /** Rebuilds the snapshot if the backpack changed since the last read. Returns true if rebuilt. */
+    boolean refreshIfDirty(GameClient client) {
+        if (!dirty) return false;
+        dirty = false;
+        rebuild(client);
+        return true;
+    }
+
+    /** Resolves every backpack slot through the lookup table in a single pass. */
+    void rebuild(GameClient client) {
+        java.util.Arrays.fill(counts, 0);
+        client.forEachBackpackItem(sink);
+        rebuilds++;
+        lastBuiltMs = client.currentTimeMillis();
+    }
+
+    private void add(int id, int amount) {
+        if (id <= 0 || id >= LOOKUP.length) return;
+        int code = LOOKUP[id];
+        if (code == 0) return;
+        counts[code - 1] += Math.max(1, amount);
+    }
+
+    int count(BreezysFrameMaker.WoodType wood, int column) {
+        return counts[wood.ordinal() * COLUMNS + column];
+    }
+
+    int logs(BreezysFrameMaker.WoodType wood)    { return count(wood, COL_LOGS); }
+    int planks(BreezysFrameMaker.WoodType wood)  { return count(wood, COL_PLANKS); }
+    int refined(BreezysFrameMaker.WoodType wood) { return count(wood, COL_REFINED); }
+    int frames(BreezysFrameMaker.WoodType wood)  { return count(wood, COL_FRAMES); }
+
+    /** Total of one column across every wood tier. */
+    int total(int column) {
+        int sum = 0;
+        for (int i = column; i < counts.length; i += COLUMNS) sum += counts[i];
+        return sum;
+    }
+
+    boolean isDirty()   { return dirty; }
+    int  rebuilds()     { return rebuilds; }
+    long lastChangeMs() { return lastChangeMs; }
+    long lastBuiltMs()  { return lastBuiltMs; }
+}
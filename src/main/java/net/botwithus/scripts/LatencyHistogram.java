@@ -0,0 +1,72 @@
+package net.botwithus.scripts;
+
+/**
+ * Fixed-memory log-linear histogram of millisecond latencies.
+ *
+ * Values below 16 ms get their own bucket; above that each power of two is split
+ * into 8 sub-buckets (~12.5% relative error). Values of 2^MAX_EXP ms and up share
+ * one overflow bucket. Recording is a couple of shifts and an array increment, no
+ * allocation.
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR    = 16;
+    private static final int SUB_BITS  = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXP   = 23;   // ~2.3 h, far past any step timeout
+    static final int BUCKETS = LINEAR + (MAX_EXP - 4) * SUB_COUNT + 1;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count = 0;
+    private long sum   = 0;
+    private long max   = 0;
+
+    void record(long ms) {
+        if (ms < 0) ms = 0;
+        buckets[indexOf(ms)]++;
+        count++;
+        sum += ms;
+        if (ms > max) max = ms;
+    }
+
+    /** Approximate value at the given quantile (0..1), reported as the bucket's upper bound. */
+    long percentile(double q) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(q * count);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    long count() { return count; }
+    long sum()   { return sum; }
+    long max()   { return max; }
+    long mean()  { return count > 0 ? sum / count : 0; }
+
+    void reset() {
+        java.util.Arrays.fill(buckets, 0);
+        count = 0;
+        sum   = 0;
+        max   = 0;
+    }
+
+    static int indexOf(long v) {
+        if (v < LINEAR) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        if (exp >= MAX_EXP) return BUCKETS - 1;
+        int sub = (int) ((v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1));
+        return LINEAR + (exp - 4) * SUB_COUNT + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR) return index;
+        int exp = (index - LINEAR) / SUB_COUNT + 4;
+        int sub = (index - LINEAR) % SUB_COUNT;
+        long width = 1L << (exp - SUB_BITS);
+        return ((SUB_COUNT + sub) * width) + width - 1;
+    }
+}
@@ -0,0 +1,77 @@
+package net.botwithus.scripts;
+
+import net.botwithus.rs3.game.Client;
+import net.botwithus.rs3.game.Item;
+import net.botwithus.rs3.game.hud.interfaces.Interfaces;
+import net.botwithus.rs3.game.inventories.Backpack;
+import net.botwithus.rs3.game.inventories.Bank;
+import net.botwithus.rs3.game.minimenu.MiniMenu;
+import net.botwithus.rs3.game.skills.Skill;
+import net.botwithus.rs3.game.skills.Skills;
+import net.botwithus.rs3.script.Execution;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/** GameClient backed by the static BotWithUs APIs. */
+final class LiveGameClient implements GameClient {
+
+    @Override
+    public boolean interact(int actionType, int param1, int param2, int param3) {
+        return MiniMenu.interact(actionType, param1, param2, param3);
+    }
+
+    @Override
+    public boolean isInterfaceOpen(int interfaceId) {
+        return Interfaces.isOpen(interfaceId);
+    }
+
+    @Override
+    public boolean isBankOpen() {
+        return Bank.isOpen();
+    }
+
+    @Override
+    public void forEachBackpackItem(ItemSink sink) {
+        List<Item> items = Backpack.getItems();
+        for (int i = 0, n = items.size(); i < n; i++) {
+            Item item = items.get(i);
+            if (item != null) sink.accept(item.getId(), item.getStackSize());
+        }
+    }
+
+    /** No-op: the script subscribes to InventoryUpdateEvent itself, which needs the Script instance. */
+    @Override
+    public void onBackpackChange(Runnable listener) {
+    }
+
+    @Override
+    public int constructionXp() {
+        return new Skill(Skills.CONSTRUCTION).getExperience();
+    }
+
+    @Override
+    public int constructionLevel() {
+        return new Skill(Skills.CONSTRUCTION).getLevel();
+    }
+
+    @Override
+    public void setAntiAfk(boolean enabled) {
+        Client.setAntiAFK(enabled);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void delay(long ms) {
+        Execution.delay(ms);
+    }
+
+    @Override
+    public boolean delayUntil(long timeoutMs, BooleanSupplier condition) {
+        return Execution.delayUntil(timeoutMs, condition::getAsBoolean);
+    }
+}
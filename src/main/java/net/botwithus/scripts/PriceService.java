@@ -0,0 +1,172 @@
+package net.botwithus.scripts;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background GE price cache for every log / plank / refined / frame id in WoodType.
+ *
+ * Startup order: bundled static prices (dated estimates), then the on-disk snapshot from
+ * the last run (so the panel has numbers immediately), then an async refresh through
+ * the live sources in order until one answers; each step overrides the one before.
+ * Refreshed prices are written back to the snapshot. Entries past TTL stay readable
+ * until the next refresh; entries older than MAX_AGE are evicted, except static
+ * fallbacks which never expire. An item none of them knows shows as "?".
+ *
+ * Reads never block: price() is a map lookup, all I/O is on the refresh thread.
+ */
+final class PriceService {
+
+    static final long TTL_MS     = TimeUnit.MINUTES.toMillis(30);
+    static final long MAX_AGE_MS = TimeUnit.HOURS.toMillis(24);
+    static final String STATIC   = "Static";
+
+    record Entry(int price, long fetchedAtMs, String source) { }
+
+    private static final int[] ITEM_IDS;
+
+    static {
+        BreezysFrameMaker.WoodType[] woods = BreezysFrameMaker.WoodType.values();
+        int[] ids = new int[woods.length * 4];
+        int n = 0;
+        for (BreezysFrameMaker.WoodType w : woods) {
+            for (int id : new int[] { w.logId, w.plankId, w.refinedId, w.frameId }) {
+                if (id > 0) ids[n++] = id;
+            }
+        }
+        ITEM_IDS = java.util.Arrays.copyOf(ids, n);
+    }
+
+    private final Map<Integer, Entry> cache = new ConcurrentHashMap<>();
+    private final List<PriceSource>   sources;
+    private final PriceSource         fallback;
+    private final Path                snapshot;
+    private final ScriptLog           log;
+    private ScheduledExecutorService  refresher;
+
+    private volatile long   lastRefreshMs = 0;
+    private volatile String lastSource    = "none";
+
+    PriceService(List<PriceSource> sources, PriceSource fallback, Path snapshot, ScriptLog log) {
+        this.sources  = sources;
+        this.fallback = fallback;
+        this.snapshot = snapshot;
+        this.log      = log;
+    }
+
+    /** Cached price, or -1 if no source has ever produced one. */
+    int price(int itemId) {
+        Entry e = cache.get(itemId);
+        return e == null ? -1 : e.price();
+    }
+
+    int    size()          { return cache.size(); }
+    long   lastRefreshMs() { return lastRefreshMs; }
+    String lastSource()    { return lastSource; }
+
+    /** Loads the fallback and snapshot synchronously (local files only) and starts the refresh schedule. */
+    synchronized void start() {
+        if (refresher != null) return;
+        loadFallback();
+        loadSnapshot();
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "FrameMaker-prices");
+            t.setDaemon(true);
+            return t;
+        });
+        long age = System.currentTimeMillis() - lastRefreshMs;
+        long firstIn = lastRefreshMs > 0 && age < TTL_MS ? TTL_MS - age : 0;
+        refresher.scheduleWithFixedDelay(this::refresh, firstIn, TTL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (refresher == null) return;
+        refresher.shutdownNow();
+        refresher = null;
+    }
+
+    /** Tries each live source in order; first non-empty answer wins. Runs on the refresh thread. */
+    void refresh() {
+        long now = System.currentTimeMillis();
+        for (PriceSource source : sources) {
+            try {
+                Map<Integer, Integer> prices = source.fetch(ITEM_IDS);
+                if (prices.isEmpty()) continue;
+                prices.forEach((id, p) -> cache.put(id, new Entry(p, now, source.name())));
+                lastRefreshMs = now;
+                lastSource    = source.name();
+                log.info("Prices refreshed from {} ({} items).", source.name(), prices.size());
+                break;
+            } catch (IOException | RuntimeException e) {
+                log.debug("Price source {} unavailable: {}", source.name(), e.getMessage());
+            }
+        }
+        evictStale(now);
+        saveSnapshot();
+    }
+
+    private void evictStale(long now) {
+        cache.entrySet().removeIf(e -> !STATIC.equals(e.getValue().source())
+                                       && now - e.getValue().fetchedAtMs() > MAX_AGE_MS);
+    }
+
+    // =========================================================================
+    //  LOCAL STORES
+    // =========================================================================
+    private void loadFallback() {
+        try {
+            fallback.fetch(ITEM_IDS).forEach((id, p) -> cache.put(id, new Entry(p, 0, STATIC)));
+        } catch (IOException e) {
+            log.debug("No static prices: {}", e.getMessage());
+        }
+    }
+
+    /** Snapshot lines: {@code itemId=price,fetchedAtMs,source}. */
+    private void loadSnapshot() {
+        if (!Files.exists(snapshot)) return;
+        long now = System.currentTimeMillis();
+        try {
+            for (String line : Files.readAllLines(snapshot, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                int eq = line.indexOf('=');
+                String[] v = line.substring(eq + 1).split(",");
+                try {
+                    long at = Long.parseLong(v[1]);
+                    if (now - at > MAX_AGE_MS) continue;
+                    cache.put(Integer.parseInt(line.substring(0, eq)), new Entry(Integer.parseInt(v[0]), at, v[2]));
+                    if (at > lastRefreshMs) { lastRefreshMs = at; lastSource = v[2]; }
+                } catch (RuntimeException ignored) {
+                    // bad line -- refetch
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Could not read price snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void saveSnapshot() {
+        StringBuilder sb = new StringBuilder("# Breezy's Frame Maker price snapshot: itemId=price,fetchedAtMs,source\n");
+        cache.forEach((id, e) -> {
+            if (STATIC.equals(e.source())) return;
+            sb.append(id).append('=').append(e.price()).append(',').append(e.fetchedAtMs())
+              .append(',').append(e.source()).append('\n');
+        });
+        try {
+            Files.createDirectories(snapshot.getParent());
+            Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+            Files.writeString(tmp, sb.toString(), StandardCharsets.UTF_8);
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("Could not save price snapshot: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package net.botwithus.scripts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Where PriceService gets GE prices from. Implementations may block -- they are only
+ * ever called from the price refresh thread.
+ */
+interface PriceSource {
+
+    /** Short name shown in the panel. */
+    String name();
+
+    /** Prices for as many of {@code itemIds} as the source knows; missing ids are simply absent. */
+    Map<Integer, Integer> fetch(int[] itemIds) throws IOException;
+
+    // =========================================================================
+    //  IMPLEMENTATIONS
+    // =========================================================================
+
+    /** RS Wiki (Weird Gloop) exchange API: one request for every id. */
+    final class WikiApi implements PriceSource {
+        private static final String  URL   = "https://api.weirdgloop.org/exchange/history/rs/latest?id=";
+        private static final Pattern ENTRY = Pattern.compile("\"(\\d+)\"\\s*:\\s*\\{[^}]*?\"price\"\\s*:\\s*(\\d+)");
+
+        private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        @Override
+        public String name() { return "Wiki"; }
+
+        @Override
+        public Map<Integer, Integer> fetch(int[] itemIds) throws IOException {
+            StringBuilder ids = new StringBuilder();
+            for (int id : itemIds) {
+                if (ids.length() > 0) ids.append("%7C");   // '|'
+                ids.append(id);
+            }
+            HttpRequest req = HttpRequest.newBuilder(URI.create(URL + ids))
+                .timeout(Duration.ofSeconds(10))
+                .header("User-Agent", "BreezysFrameMaker price cache")
+                .GET().build();
+            HttpResponse<String> resp;
+            try {
+                resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted", e);
+            }
+            if (resp.statusCode() != 200) throw new IOException("HTTP " + resp.statusCode());
+            Map<Integer, Integer> prices = new HashMap<>();
+            Matcher m = ENTRY.matcher(resp.body());
+            while (m.find()) prices.put(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            return prices;
+        }
+    }
+
+    /**
+     * {@code itemId=price} properties, either a local file (handy as a stub or manual
+     * override) or a classpath resource (the bundled static fallback).
+     */
+    final class PropertiesFile implements PriceSource {
+        private final String name;
+        private final Path   file;
+        private final String resource;
+
+        private PropertiesFile(String name, Path file, String resource) {
+            this.name     = name;
+            this.file     = file;
+            this.resource = resource;
+        }
+
+        static PropertiesFile file(Path file)           { return new PropertiesFile("File", file, null); }
+        static PropertiesFile resource(String resource) { return new PropertiesFile(PriceService.STATIC, null, resource); }
+
+        @Override
+        public String name() { return name; }
+
+        @Override
+        public Map<Integer, Integer> fetch(int[] itemIds) throws IOException {
+            Properties props = new Properties();
+            if (file != null) {
+                if (!Files.exists(file)) throw new IOException("no price file at " + file);
+                try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) { props.load(r); }
+            } else {
+                try (InputStream in = PriceSource.class.getResourceAsStream(resource)) {
+                    if (in == null) throw new IOException("missing resource " + resource);
+                    props.load(in);
+                }
+            }
+            Map<Integer, Integer> prices = new HashMap<>();
+            for (int id : itemIds) {
+                String v = props.getProperty(Integer.toString(id));
+                if (v == null || v.isBlank()) continue;
+                try {
+                    prices.put(id, Integer.parseInt(v.trim()));
+                } catch (NumberFormatException ignored) {
+                    // skip bad entry
+                }
+            }
+            return prices;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package net.botwithus.scripts;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional {@code /metrics} endpoint in Prometheus text format, bound to the loopback
+ * interface only.
+ *
+ * Several clients on one machine each need their own port, so the first free port from
+ * BASE_PORT upwards (PORT_RANGE of them) is taken; the panel shows which. Requests are
+ * served on one daemon thread and only read ScriptMetrics.
+ */
+final class PrometheusEndpoint {
+
+    static final int BASE_PORT  = 9464;
+    static final int PORT_RANGE = 16;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ScriptMetrics metrics;
+    private HttpServer      server;
+    private ExecutorService executor;   // owned here: HttpServer.stop() does not shut it down
+
+    PrometheusEndpoint(ScriptMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    boolean isRunning() { return server != null; }
+
+    /** Port in use, or -1 when stopped. */
+    int port() { return server == null ? -1 : server.getAddress().getPort(); }
+
+    synchronized void start() throws IOException {
+        if (server != null) return;
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        for (int port = BASE_PORT; port < BASE_PORT + PORT_RANGE; port++) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(loopback, port), 0);
+                break;
+            } catch (BindException inUse) {
+                // next port
+            }
+        }
+        if (server == null) {
+            throw new BindException("No free port in " + BASE_PORT + ".." + (BASE_PORT + PORT_RANGE - 1));
+        }
+        server.createContext("/metrics", this::serve);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "FrameMaker-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        server = null;
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder sb = new StringBuilder(4096);
+            metrics.writePrometheus(sb);
+            byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package net.botwithus.scripts;
+
+import java.util.Random;
+
+/**
+ * Classifies step failures and decides how to recover from them.
+ *
+ * Each failure class has its own exponential backoff (base doubling per consecutive
+ * failure of that class, capped, +-25% jitter). Any success clears the streak and
+ * reports how long the script took to recover from the first failure of it.
+ *
+ * Circuit breaker: TRIP_STREAK failures in a row, of any class, trip it. The first
+ * MAX_RESETS trips within RESET_WINDOW_MS escalate to a full reset (back to the bank
+ * chest with all cached station state dropped); the next one stops the script.
+ *
+ * Loop thread only, except the counters the panel reads.
+ */
+final class RecoveryEngine {
+
+    enum Failure {
+        CLICK_REJECTED         ("Click rejected",           600,  4_800),
+        INTERFACE_NEVER_OPENED ("Interface never opened", 1_000,  8_000),
+        PROGRESS_NEVER_STARTED ("Progress never started",   600,  6_000),
+        PROGRESS_TIMED_OUT     ("Progress timed out",     1_200, 10_000);
+
+        final String label;
+        final long   baseMs, capMs;
+
+        Failure(String label, long baseMs, long capMs) {
+            this.label  = label;
+            this.baseMs = baseMs;
+            this.capMs  = capMs;
+        }
+    }
+
+    enum Action { RETRY, RESET, STOP }
+
+    private static final Failure[] FAILURES        = Failure.values();
+    private static final int       TRIP_STREAK     = 5;
+    private static final int       MAX_RESETS      = 2;
+    private static final long      RESET_WINDOW_MS = 15 * 60_000L;
+
+    private final Random random = new Random();
+
+    private final int[] consecutive = new int[FAILURES.length];
+    private final int[] totals      = new int[FAILURES.length];
+    private int  streak         = 0;
+    private long streakStartMs  = -1;
+    private long backoffMs      = 0;
+    private final long[] resetAtMs = new long[MAX_RESETS];
+    private int  resets         = 0;
+
+    private volatile long lastRecoveryMs = -1;
+    private volatile int  trips          = 0;
+
+    /** Records a failure and returns what to do about it; RETRY comes with backoffMs(). */
+    Action failed(Failure f, long nowMs) {
+        totals[f.ordinal()]++;
+        int n = ++consecutive[f.ordinal()];
+        if (streak++ == 0) streakStartMs = nowMs;
+
+        long base = Math.min(f.capMs, f.baseMs << Math.min(n - 1, 16));
+        backoffMs = (long) (base * (0.75 + 0.5 * random.nextDouble()));
+
+        if (streak < TRIP_STREAK) return Action.RETRY;
+        trips++;
+        streak = 0;
+        java.util.Arrays.fill(consecutive, 0);
+        if (recentResets(nowMs) >= MAX_RESETS) return Action.STOP;
+        resetAtMs[resets++ % MAX_RESETS] = nowMs;
+        return Action.RESET;
+    }
+
+    /**
+     * A step succeeded. Returns the time since the first failure of the streak it ends,
+     * or -1 if there was no streak.
+     */
+    long succeeded(long nowMs) {
+        java.util.Arrays.fill(consecutive, 0);
+        streak = 0;
+        if (streakStartMs < 0) return -1;
+        long took = nowMs - streakStartMs;
+        streakStartMs  = -1;
+        lastRecoveryMs = took;
+        return took;
+    }
+
+    /** Forgets the streak, reset history and trip count, for a new session. */
+    void reset() {
+        java.util.Arrays.fill(consecutive, 0);
+        java.util.Arrays.fill(resetAtMs, 0);
+        streak        = 0;
+        streakStartMs = -1;
+        resets        = 0;
+        trips         = 0;
+    }
+
+    private int recentResets(long nowMs) {
+        int n = 0;
+        for (int i = 0; i < Math.min(resets, MAX_RESETS); i++) {
+            if (nowMs - resetAtMs[i] <= RESET_WINDOW_MS) n++;
+        }
+        return n;
+    }
+
+    long backoffMs()           { return backoffMs; }
+    int  streak()              { return streak; }
+    int  total(Failure f)      { return totals[f.ordinal()]; }
+    int  trips()               { return trips; }
+    long lastRecoveryMs()      { return lastRecoveryMs; }
+    static int tripStreak()    { return TRIP_STREAK; }
+}
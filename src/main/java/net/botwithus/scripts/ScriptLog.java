@@ -0,0 +1,303 @@
+package net.botwithus.scripts;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous script logger.
+ *
+ * Callers pass a constant template with {} placeholders and up to three arguments.
+ * A disabled level returns before anything is touched; an enabled one claims a slot
+ * in a bounded lock-free multi-producer ring (Vyukov-style sequence per slot) and
+ * returns. A daemon thread drains the ring, applies the per-template rate limit,
+ * formats, and writes to the console sink and the optional rolling file.
+ *
+ * When the ring is full the event is dropped and counted -- logging never blocks
+ * the loop.
+ */
+final class ScriptLog {
+
+    enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final String PREFIX              = "[FrameCrafter] ";
+    private static final int    CAPACITY            = 1024;   // power of two
+    private static final long   IDLE_PARK_NANOS     = 20_000_000L;
+    private static final long   RATE_WINDOW_MS      = 1_000;
+    private static final int    RATE_MAX_PER_WINDOW = 5;
+    private static final long   ROLL_BYTES          = 1_048_576;
+    private static final int    ROLL_KEEP           = 3;
+    private static final DateTimeFormatter TIME     =
+        DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    /** One preallocated ring slot. */
+    private static final class Event {
+        Level  level;
+        long   timeMs;
+        String template;
+        Object a, b, c;
+    }
+
+    private final Event[]         ring = new Event[CAPACITY];
+    private final AtomicLongArray seq  = new AtomicLongArray(CAPACITY);
+    private final AtomicLong      tail = new AtomicLong();
+    private long                  head = 0;   // consumer only
+
+    private final Consumer<String> console;
+    private volatile Level   minLevel = Level.INFO;
+    private volatile Path    logFile  = null;
+    private volatile boolean running  = false;
+    private final AtomicLong dropped  = new AtomicLong();
+    private Thread drainer;
+
+    // Rate limit state, consumer thread only: template identity -> window
+    private final RateTable rates = new RateTable();
+    private BufferedWriter  fileOut;
+    private Path            openFile;
+    private long            fileBytes;
+
+    ScriptLog(Consumer<String> console) {
+        this.console = console;
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Event();
+            seq.set(i, i);
+        }
+    }
+
+    // =========================================================================
+    //  CONFIG / LIFECYCLE
+    // =========================================================================
+    void setLevel(Level level)   { this.minLevel = level; }
+    Level level()                { return minLevel; }
+    boolean isEnabled(Level l)   { return l.ordinal() >= minLevel.ordinal(); }
+    long dropped()               { return dropped.get(); }
+
+    /** Enables the rolling file sink at {@code file}, or disables it with null. */
+    void setFile(Path file)      { this.logFile = file; }
+    Path file()                  { return logFile; }
+
+    synchronized void start() {
+        if (running) return;
+        running = true;
+        drainer = new Thread(this::drainLoop, "FrameMaker-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /** Stops the drain thread after it has written everything already queued. */
+    synchronized void shutdown() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // =========================================================================
+    //  PRODUCERS
+    // =========================================================================
+    void debug(String t)                                { log(Level.DEBUG, t, null, null, null); }
+    void debug(String t, Object a)                      { log(Level.DEBUG, t, a, null, null); }
+    void debug(String t, Object a, Object b)            { log(Level.DEBUG, t, a, b, null); }
+    void debug(String t, Object a, Object b, Object c)  { log(Level.DEBUG, t, a, b, c); }
+    void info(String t)                                 { log(Level.INFO, t, null, null, null); }
+    void info(String t, Object a)                       { log(Level.INFO, t, a, null, null); }
+    void info(String t, Object a, Object b)             { log(Level.INFO, t, a, b, null); }
+    void info(String t, Object a, Object b, Object c)   { log(Level.INFO, t, a, b, c); }
+    void warn(String t)                                 { log(Level.WARN, t, null, null, null); }
+    void warn(String t, Object a)                       { log(Level.WARN, t, a, null, null); }
+    void warn(String t, Object a, Object b)             { log(Level.WARN, t, a, b, null); }
+    void warn(String t, Object a, Object b, Object c)   { log(Level.WARN, t, a, b, c); }
+    void error(String t, Object a)                      { log(Level.ERROR, t, a, null, null); }
+
+    void log(Level level, String template, Object a, Object b, Object c) {
+        if (level.ordinal() < minLevel.ordinal()) return;
+        long pos = tail.get();
+        while (true) {
+            int  idx = (int) (pos & (CAPACITY - 1));
+            long dif = seq.get(idx) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    Event e    = ring[idx];
+                    e.level    = level;
+                    e.timeMs   = System.currentTimeMillis();
+                    e.template = template;
+                    e.a = a; e.b = b; e.c = c;
+                    seq.set(idx, pos + 1);   // publish
+                    return;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                dropped.incrementAndGet();   // full
+                return;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    // =========================================================================
+    //  CONSUMER
+    // =========================================================================
+    private void drainLoop() {
+        StringBuilder sb = new StringBuilder(256);
+        while (true) {
+            int drained = drain(sb);
+            if (drained == 0) {
+                if (!running) break;
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        closeFile();
+    }
+
+    private int drain(StringBuilder sb) {
+        int n = 0;
+        while (true) {
+            int  idx = (int) (head & (CAPACITY - 1));
+            if (seq.get(idx) != head + 1) break;
+            Event e = ring[idx];
+            int suppressed = rates.admit(e.template, e.timeMs);
+            if (suppressed >= 0) {
+                sb.setLength(0);
+                sb.append(PREFIX);
+                if (e.level != Level.INFO) sb.append(e.level.name()).append(": ");
+                format(sb, e.template, e.a, e.b, e.c);
+                if (suppressed > 0) sb.append("  (+").append(suppressed).append(" similar suppressed)");
+                write(e.level, e.timeMs, sb.toString());
+            }
+            e.template = null;
+            e.a = e.b = e.c = null;
+            seq.set(idx, head + CAPACITY);   // free the slot
+            head++;
+            n++;
+        }
+        if (n > 0) flushFile();
+        return n;
+    }
+
+    private static void format(StringBuilder sb, String t, Object a, Object b, Object c) {
+        int arg = 0, from = 0;
+        while (true) {
+            int at = t.indexOf("{}", from);
+            if (at < 0) break;
+            sb.append(t, from, at);
+            Object v = arg == 0 ? a : arg == 1 ? b : c;
+            sb.append(arg < 3 ? String.valueOf(v) : "{}");
+            arg++;
+            from = at + 2;
+        }
+        sb.append(t, from, t.length());
+    }
+
+    private void write(Level level, long timeMs, String line) {
+        try {
+            console.accept(line);
+        } catch (RuntimeException ignored) {
+            // console gone during shutdown
+        }
+        Path target = logFile;
+        if (target == null) { closeFile(); return; }
+        try {
+            if (!target.equals(openFile)) openFile(target);
+            String fileLine = TIME.format(Instant.ofEpochMilli(timeMs)) + ' ' + level.name() + ' ' + line + '\n';
+            fileOut.write(fileLine);
+            fileBytes += fileLine.length();
+            if (fileBytes >= ROLL_BYTES) roll();
+        } catch (IOException e) {
+            closeFile();
+            logFile = null;
+            console.accept(PREFIX + "Log file disabled: " + e.getMessage());
+        }
+    }
+
+    // ---- rolling file sink (consumer thread only) ----
+    private void openFile(Path target) throws IOException {
+        closeFile();
+        Files.createDirectories(target.getParent());
+        fileOut   = Files.newBufferedWriter(target, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        openFile  = target;
+        fileBytes = Files.size(target);
+    }
+
+    private void roll() throws IOException {
+        Path target = openFile;
+        closeFile();
+        for (int i = ROLL_KEEP - 1; i >= 1; i--) {
+            Path from = target.resolveSibling(target.getFileName() + "." + i);
+            if (Files.exists(from)) {
+                Files.move(from, target.resolveSibling(target.getFileName() + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(target, target.resolveSibling(target.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        openFile(target);
+    }
+
+    private void flushFile() {
+        if (fileOut == null) return;
+        try {
+            fileOut.flush();
+        } catch (IOException ignored) {
+            // reported on the next write
+        }
+    }
+
+    private void closeFile() {
+        if (fileOut == null) return;
+        try {
+            fileOut.close();
+        } catch (IOException ignored) {
+            // nothing left to do with it
+        }
+        fileOut  = null;
+        openFile = null;
+    }
+
+    /**
+     * Per-template fixed-window rate limit, keyed by template identity (templates are
+     * string constants). Open addressing; a full table simply stops limiting new keys.
+     */
+    private static final class RateTable {
+        private static final int SIZE = 256;
+        private final String[] keys       = new String[SIZE];
+        private final long[]   windowFrom = new long[SIZE];
+        private final int[]    inWindow   = new int[SIZE];
+        private final int[]    suppressed = new int[SIZE];
+
+        /** Returns -1 to drop the event, otherwise how many were suppressed since the last one shown. */
+        int admit(String template, long now) {
+            int i = System.identityHashCode(template) & (SIZE - 1);
+            for (int probe = 0; probe < SIZE; probe++, i = (i + 1) & (SIZE - 1)) {
+                if (keys[i] == template) break;
+                if (keys[i] == null) { keys[i] = template; windowFrom[i] = now; break; }
+                if (probe == SIZE - 1) return 0;
+            }
+            if (now - windowFrom[i] >= RATE_WINDOW_MS) {
+                windowFrom[i] = now;
+                inWindow[i]   = 0;
+            }
+            if (inWindow[i] >= RATE_MAX_PER_WINDOW) {
+                suppressed[i]++;
+                return -1;
+            }
+            inWindow[i]++;
+            int s = suppressed[i];
+            suppressed[i] = 0;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package net.botwithus.scripts;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Monitoring registry for fleet dashboards: counters and gauges that the loop thread
+ * updates and JMX / the Prometheus endpoint read.
+ *
+ * Every update is a LongAdder increment, an atomic array add or a volatile store, so a
+ * scrape never holds up the loop. Step latencies are read straight from StepMetrics'
+ * histograms at scrape time, the same way the panel reads them, so they restart from zero
+ * when a session's latencies are exported. Values read by one scrape are not a
+ * consistent snapshot of each other -- fine for monitoring.
+ */
+final class ScriptMetrics implements FrameMakerMXBean {
+
+    private static final BreezysFrameMaker.WoodType[] WOODS    = BreezysFrameMaker.WoodType.values();
+    private static final BreezysFrameMaker.Stage[]    STAGES   = { BreezysFrameMaker.Stage.LOGS,
+                                                                   BreezysFrameMaker.Stage.PLANKS,
+                                                                   BreezysFrameMaker.Stage.REFINED };
+    private static final BreezysFrameMaker.State[]    STATES   = BreezysFrameMaker.State.values();
+    private static final RecoveryEngine.Failure[]     FAILURES = RecoveryEngine.Failure.values();
+    private static final StepMetrics.Step[]           STEPS    = StepMetrics.Step.values();
+
+    private final String      name;
+    private final StepMetrics steps;
+
+    private final LongAdder       batches   = new LongAdder();
+    private final LongAdder       trips     = new LongAdder();
+    private final LongAdder       breakMs   = new LongAdder();
+    private final AtomicLongArray items     = new AtomicLongArray(WOODS.length * STAGES.length);
+    private final AtomicLongArray failures  = new AtomicLongArray(FAILURES.length);
+
+    private volatile boolean running;
+    private volatile int     state     = BreezysFrameMaker.State.IDLE.ordinal();
+    private volatile long    xpGained;
+    private volatile long    sessionMs;
+
+    private ObjectName registered;
+
+    ScriptMetrics(String name, StepMetrics steps) {
+        this.name  = name;
+        this.steps = steps;
+    }
+
+    // =========================================================================
+    //  UPDATES (loop thread)
+    // =========================================================================
+    void batch()                                   { batches.increment(); }
+    void trip()                                    { trips.increment(); }
+    void breakTaken(long ms)                       { breakMs.add(ms); }
+    void failure(RecoveryEngine.Failure f)         { failures.incrementAndGet(f.ordinal()); }
+
+    /** Input items consumed by one batch; stage is the input stage (LOGS, PLANKS or REFINED). */
+    void processed(BreezysFrameMaker.WoodType wood, BreezysFrameMaker.Stage stage, int n) {
+        if (wood == null || n <= 0 || stage.ordinal() >= STAGES.length) return;
+        items.addAndGet(wood.ordinal() * STAGES.length + stage.ordinal(), n);
+    }
+
+    /** Publishes the session gauges; called on every state transition. */
+    void session(boolean running, BreezysFrameMaker.State state, long xpGained, long sessionMs) {
+        this.running   = running;
+        this.state     = state.ordinal();
+        this.xpGained  = xpGained;
+        this.sessionMs = sessionMs;
+    }
+
+    // =========================================================================
+    //  JMX
+    // =========================================================================
+    void register() {
+        if (registered != null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName("net.botwithus.scripts:type=FrameMaker,name=" + ObjectName.quote(name));
+            if (server.isRegistered(on)) server.unregisterMBean(on);
+            server.registerMBean(this, on);
+            registered = on;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register MBean: " + e.getMessage(), e);
+        }
+    }
+
+    void unregister() {
+        if (registered == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+        } catch (JMException ignored) {
+            // already gone
+        }
+        registered = null;
+    }
+
+    @Override public boolean isRunning()         { return running; }
+    @Override public String  getState()          { return STATES[state].name(); }
+    @Override public long    getBatches()        { return batches.sum(); }
+    @Override public long    getXpGained()       { return xpGained; }
+    @Override public long    getSessionSeconds() { return sessionMs / 1000; }
+    @Override public long    getBreakSeconds()   { return breakMs.sum() / 1000; }
+    @Override public long    getBreakerTrips()   { return trips.sum(); }
+
+    @Override
+    public long getXpPerHour() {
+        long ms = sessionMs;
+        return ms > 0 ? xpGained * 3_600_000L / ms : 0;
+    }
+
+    @Override
+    public Map<String, Long> getItemsProcessed() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (BreezysFrameMaker.WoodType w : WOODS) {
+            for (BreezysFrameMaker.Stage s : STAGES) {
+                long n = items.get(w.ordinal() * STAGES.length + s.ordinal());
+                if (n > 0) out.put(w.name + "/" + s.name().toLowerCase(), n);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public Map<String, Long> getFailures() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (RecoveryEngine.Failure f : FAILURES) out.put(f.name(), failures.get(f.ordinal()));
+        return out;
+    }
+
+    @Override
+    public Map<String, Long> getStepP95Millis() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (StepMetrics.Step s : STEPS) out.put(s.name(), steps.overall(s).percentile(0.95));
+        return out;
+    }
+
+    // =========================================================================
+    //  PROMETHEUS TEXT FORMAT
+    // =========================================================================
+    /** Writes every metric in Prometheus text exposition format 0.0.4. */
+    void writePrometheus(StringBuilder sb) {
+        String inst = "script=\"" + escape(name) + "\"";
+
+        header(sb, "frame_maker_running", "gauge", "1 while the script loop is running");
+        sample(sb, "frame_maker_running", inst, running ? 1 : 0);
+
+        header(sb, "frame_maker_state", "gauge", "Current state machine state (1 = active)");
+        int current = state;
+        for (BreezysFrameMaker.State s : STATES) {
+            sample(sb, "frame_maker_state", inst + ",state=\"" + s.name() + "\"", s.ordinal() == current ? 1 : 0);
+        }
+
+        header(sb, "frame_maker_batches_total", "counter", "Workbench batches completed");
+        sample(sb, "frame_maker_batches_total", inst, batches.sum());
+
+        header(sb, "frame_maker_items_processed_total", "counter", "Input items converted, by wood tier and input stage");
+        for (BreezysFrameMaker.WoodType w : WOODS) {
+            for (BreezysFrameMaker.Stage s : STAGES) {
+                long n = items.get(w.ordinal() * STAGES.length + s.ordinal());
+                if (n > 0) {
+                    sample(sb, "frame_maker_items_processed_total",
+                        inst + ",wood=\"" + w.name + "\",stage=\"" + s.name().toLowerCase() + "\"", n);
+                }
+            }
+        }
+
+        header(sb, "frame_maker_xp_gained", "gauge", "Construction XP gained this session");
+        sample(sb, "frame_maker_xp_gained", inst, xpGained);
+        header(sb, "frame_maker_xp_per_hour", "gauge", "Construction XP per hour this session");
+        sample(sb, "frame_maker_xp_per_hour", inst, getXpPerHour());
+        header(sb, "frame_maker_session_seconds", "gauge", "Session run time");
+        sample(sb, "frame_maker_session_seconds", inst, sessionMs / 1000);
+        header(sb, "frame_maker_break_seconds_total", "counter", "Time spent on AFK breaks");
+        sample(sb, "frame_maker_break_seconds_total", inst, breakMs.sum() / 1000);
+
+        header(sb, "frame_maker_step_failures_total", "counter", "Step failures handed to recovery, by class");
+        for (RecoveryEngine.Failure f : FAILURES) {
+            sample(sb, "frame_maker_step_failures_total", inst + ",class=\"" + f.name().toLowerCase() + "\"",
+                failures.get(f.ordinal()));
+        }
+        header(sb, "frame_maker_breaker_trips_total", "counter", "Recovery circuit breaker trips");
+        sample(sb, "frame_maker_breaker_trips_total", inst, trips.sum());
+
+        header(sb, "frame_maker_step_latency_ms", "summary", "Step latency in milliseconds");
+        for (StepMetrics.Step s : STEPS) {
+            LatencyHistogram h = steps.overall(s);
+            String step = inst + ",step=\"" + s.name().toLowerCase() + "\"";
+            sample(sb, "frame_maker_step_latency_ms", step + ",quantile=\"0.5\"", h.percentile(0.50));
+            sample(sb, "frame_maker_step_latency_ms", step + ",quantile=\"0.95\"", h.percentile(0.95));
+            sample(sb, "frame_maker_step_latency_ms", step + ",quantile=\"0.99\"", h.percentile(0.99));
+            sample(sb, "frame_maker_step_latency_ms_sum", step, h.sum());
+            sample(sb, "frame_maker_step_latency_ms_count", step, h.count());
+        }
+    }
+
+    private static void header(StringBuilder sb, String metric, String type, String help) {
+        sb.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String metric, String labels, long value) {
+        sb.append(metric).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
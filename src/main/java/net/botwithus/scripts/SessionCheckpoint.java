@@ -0,0 +1,123 @@
+package net.botwithus.scripts;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Small on-disk snapshot of a running session, written at every batch boundary.
+ *
+ * Holds the state machine position, the wood tier and stage, the session counters and
+ * the learned per-step timings that are not persisted elsewhere (AdaptiveTimeouts has
+ * its own file). Written as {@code key=value} lines to a temp file and renamed over the
+ * old one, so a crash mid-write leaves the previous checkpoint intact.
+ *
+ * A checkpoint older than MAX_AGE_MS still donates its learned timings, but the session
+ * itself is not resumed.
+ */
+final class SessionCheckpoint {
+
+    static final int  VERSION    = 1;
+    static final long MAX_AGE_MS = 30 * 60_000L;
+
+    long    savedAtMs;                 // wall clock
+    boolean running;
+    BreezysFrameMaker.State    state;
+    BreezysFrameMaker.WoodType wood;   // null = none detected
+    BreezysFrameMaker.Stage    stage;
+    boolean fullPipeline;
+    int     totalBatches;
+    int     startXp;
+    long    elapsedMs;                 // session time already run
+    long    sessionProfit, lastBatchProfit;
+    boolean anyProfit;
+    final double[][] xpPerFrame = new double[2][BreezysFrameMaker.WoodType.values().length];
+    final long[]     expectedMs = new long[BreezysFrameMaker.State.values().length];
+
+    boolean isFresh(long nowMs) {
+        return nowMs - savedAtMs <= MAX_AGE_MS;
+    }
+
+    void save(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder("# Breezy's Frame Maker session checkpoint\n");
+        line(sb, "version", VERSION);
+        line(sb, "savedAt", savedAtMs);
+        line(sb, "running", running);
+        line(sb, "state", state.name());
+        line(sb, "wood", wood == null ? "" : wood.name());
+        line(sb, "stage", stage.name());
+        line(sb, "fullPipeline", fullPipeline);
+        line(sb, "totalBatches", totalBatches);
+        line(sb, "startXp", startXp);
+        line(sb, "elapsedMs", elapsedMs);
+        line(sb, "sessionProfit", sessionProfit);
+        line(sb, "lastBatchProfit", lastBatchProfit);
+        line(sb, "anyProfit", anyProfit);
+        line(sb, "xpPerFrame.0", join(xpPerFrame[0]));
+        line(sb, "xpPerFrame.1", join(xpPerFrame[1]));
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < expectedMs.length; i++) expected.append(i > 0 ? "," : "").append(expectedMs[i]);
+        line(sb, "expectedMs", expected);
+
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, sb.toString(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Reads a checkpoint, or returns null if there is none or it is unreadable / from another version. */
+    static SessionCheckpoint load(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        Map<String, String> kv = new HashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            int eq = line.indexOf('=');
+            if (eq > 0) kv.put(line.substring(0, eq), line.substring(eq + 1));
+        }
+        try {
+            if (Integer.parseInt(kv.get("version")) != VERSION) return null;
+            SessionCheckpoint cp = new SessionCheckpoint();
+            cp.savedAtMs       = Long.parseLong(kv.get("savedAt"));
+            cp.running         = Boolean.parseBoolean(kv.get("running"));
+            cp.state           = BreezysFrameMaker.State.valueOf(kv.get("state"));
+            String wood        = kv.get("wood");
+            cp.wood            = wood.isEmpty() ? null : BreezysFrameMaker.WoodType.valueOf(wood);
+            cp.stage           = BreezysFrameMaker.Stage.valueOf(kv.get("stage"));
+            cp.fullPipeline    = Boolean.parseBoolean(kv.get("fullPipeline"));
+            cp.totalBatches    = Integer.parseInt(kv.get("totalBatches"));
+            cp.startXp         = Integer.parseInt(kv.get("startXp"));
+            cp.elapsedMs       = Long.parseLong(kv.get("elapsedMs"));
+            cp.sessionProfit   = Long.parseLong(kv.get("sessionProfit"));
+            cp.lastBatchProfit = Long.parseLong(kv.get("lastBatchProfit"));
+            cp.anyProfit       = Boolean.parseBoolean(kv.get("anyProfit"));
+            split(kv.get("xpPerFrame.0"), cp.xpPerFrame[0]);
+            split(kv.get("xpPerFrame.1"), cp.xpPerFrame[1]);
+            String[] expected = kv.get("expectedMs").split(",");
+            for (int i = 0; i < Math.min(expected.length, cp.expectedMs.length); i++) {
+                cp.expectedMs[i] = Long.parseLong(expected[i]);
+            }
+            return cp;
+        } catch (RuntimeException e) {
+            return null;   // missing key or bad value -- start cold
+        }
+    }
+
+    private static void line(StringBuilder sb, String key, Object value) {
+        sb.append(key).append('=').append(value).append('\n');
+    }
+
+    private static String join(double[] row) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < row.length; i++) sb.append(i > 0 ? "," : "").append(row[i]);
+        return sb.toString();
+    }
+
+    private static void split(String s, double[] into) {
+        String[] parts = s.split(",");
+        for (int i = 0; i < Math.min(parts.length, into.length); i++) into[i] = Double.parseDouble(parts[i]);
+    }
+}
@@ -0,0 +1,134 @@
+package net.botwithus.scripts;
+
+import java.util.Random;
+
+/**
+ * Pre-stages the action that follows a batch so it fires as soon as the batch is done.
+ *
+ * While a batch runs the scheduler predicts its finish: from the consumption rate once
+ * items have started to land, otherwise from the CompletionWaiter's running average for
+ * the step. The prediction drives two things:
+ *
+ *  - The CompletionWaiter polls finely only inside its window of the predicted finish.
+ *  - Inside STAGE_WINDOW_MS of it the follow-up is staged -- the State the script expects
+ *    to enter, the object it will click and its humanizing delay, rolled up front. A batch
+ *    that finishes without having been staged (no prediction yet, or it finished well
+ *    ahead of it) is counted as missed and its follow-up rolls its own delay as before.
+ *
+ * Nothing is clicked early: clicking a station mid-batch would cancel the batch. The
+ * staged delay is measured from the real completion time instead of from the moment the
+ * script got round to it, so wait overshoot, the settle pause and the backpack re-read
+ * all overlap with the delay instead of adding to it. If the script ends up in another
+ * State, clicks another object, or the stage goes stale (AFK break, stop), the staged
+ * action is dropped and the step rolls its own delay as before.
+ */
+final class SpeculativeScheduler {
+
+    private static final long STAGE_WINDOW_MS = 2_000;
+    private static final long STALE_MS        = 5_000;
+
+    private final Random random = new Random();
+
+    // Current batch, loop thread only
+    private BreezysFrameMaker.State nextState;
+    private int  nextObjectId;
+    private long minDelayMs, maxDelayMs;
+    private long batchStartMs;
+    private int  inputAtStart;
+    private long predictedFinishMs = -1;
+
+    // Staged action
+    private boolean staged;
+    private long    stagedDelayMs;
+    private long    completedAtMs = -1;
+
+    // Stats, read by the panel
+    private volatile int  fired, dropped, missed;
+    private volatile long savedMs, finishErrorMs;
+    private volatile int  predictions;
+
+    /**
+     * Starts tracking a batch whose follow-up is a click on {@code objectId} from {@code next}.
+     *
+     * @param expectedMs the step's typical duration, 0 if unknown
+     */
+    void begin(BreezysFrameMaker.State next, int objectId, long minDelayMs, long maxDelayMs,
+               int input, long expectedMs, long nowMs) {
+        this.nextState     = next;
+        this.nextObjectId  = objectId;
+        this.minDelayMs    = minDelayMs;
+        this.maxDelayMs    = maxDelayMs;
+        this.batchStartMs  = nowMs;
+        this.inputAtStart  = input;
+        this.predictedFinishMs = expectedMs > 0 ? nowMs + expectedMs : -1;
+        this.staged        = false;
+        this.completedAtMs = -1;
+    }
+
+    /** Called on every completion poll with the input still in the backpack. */
+    void observe(int remaining, long nowMs) {
+        if (nextState == null) return;
+        int consumed = inputAtStart - remaining;
+        if (consumed > 0 && remaining > 0) {
+            long elapsed = nowMs - batchStartMs;
+            predictedFinishMs = batchStartMs + elapsed * inputAtStart / consumed;
+        }
+        if (!staged && predictedFinishMs >= 0 && predictedFinishMs - nowMs <= STAGE_WINDOW_MS) stage();
+    }
+
+    /** The batch finished at {@code completedAtMs}; a staged action may now fire. */
+    void confirm(long completedAtMs) {
+        if (nextState == null) return;
+        if (!staged) missed++;
+        this.completedAtMs = completedAtMs;
+        if (predictedFinishMs >= 0) {
+            finishErrorMs += Math.abs(completedAtMs - predictedFinishMs);
+            predictions++;
+        }
+    }
+
+    /** The batch did not finish cleanly; nothing is safe to pre-stage. */
+    void cancel() {
+        if (staged) dropped++;
+        reset();
+    }
+
+    /**
+     * Returns the delay still owed before clicking {@code objectId} from {@code state},
+     * or -1 when nothing matching is staged (the caller rolls its own delay).
+     */
+    long claim(BreezysFrameMaker.State state, int objectId, long nowMs) {
+        if (!staged || completedAtMs < 0) return -1;
+        boolean matches = state == nextState && objectId == nextObjectId && nowMs - completedAtMs <= STALE_MS;
+        long    owed    = Math.max(0, stagedDelayMs - (nowMs - completedAtMs));
+        if (!matches) {
+            dropped++;
+            reset();
+            return -1;
+        }
+        fired++;
+        savedMs += stagedDelayMs - owed;
+        reset();
+        return owed;
+    }
+
+    /** Predicted finish of the tracked batch on the client clock, or -1 when unknown. */
+    long predictedFinishMs() { return nextState == null ? -1 : predictedFinishMs; }
+
+    int  fired()             { return fired; }
+    int  dropped()           { return dropped; }
+    int  missed()            { return missed; }
+    long savedMs()           { return savedMs; }
+    long avgFinishErrorMs()  { return predictions > 0 ? finishErrorMs / predictions : 0; }
+
+    private void stage() {
+        staged        = true;
+        stagedDelayMs = minDelayMs + (long) (random.nextDouble() * (maxDelayMs - minDelayMs));
+    }
+
+    private void reset() {
+        nextState     = null;
+        staged        = false;
+        completedAtMs = -1;
+    }
+}
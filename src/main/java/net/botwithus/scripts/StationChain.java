@@ -0,0 +1,81 @@
+package net.botwithus.scripts;
+
+/**
+ * Tracks which station menu is live so consecutive steps can skip reopening it.
+ *
+ * The sawmill and workbench menus share interface ids (the sawmill also comes up as
+ * 1371 on first open), so an open interface alone does not say which station it
+ * belongs to. This remembers the station object last opened and the step last
+ * constructed from its menu (the product selection). A step may go straight to
+ * Construct when that station's menu is still up -- or came back up after the
+ * progress interface closed.
+ *
+ * Chaining from one product into another is trusted until it fails: a Construct on a
+ * reused menu that never starts progress counts against that (from, to) transition,
+ * and after MAX_FAILURES in a row that transition always reopens the menu.
+ */
+final class StationChain {
+
+    private static final int MAX_FAILURES = 2;
+    private static final BreezysFrameMaker.State[] STATES = BreezysFrameMaker.State.values();
+
+    private int liveStation = -1;                       // object id whose menu was last opened
+    private BreezysFrameMaker.State selection = null;   // step last constructed from that menu
+    private boolean reusing = false;                    // the pending Construct is on a reused menu
+    private final int[][] failures = new int[STATES.length][STATES.length];
+
+    private volatile int reused, opened;
+
+    /**
+     * True if {@code step} can use the open menu of {@code stationId} without clicking
+     * the station again. Marks the following Construct as a reuse.
+     */
+    boolean tryReuse(int stationId, BreezysFrameMaker.State step, boolean menuOpen) {
+        if (!menuOpen || stationId != liveStation) return false;
+        if (selection != null && selection != step
+                && failures[selection.ordinal()][step.ordinal()] >= MAX_FAILURES) return false;
+        reusing = true;
+        reused++;
+        return true;
+    }
+
+    /** The station's menu was opened by clicking the object. */
+    void opened(int stationId) {
+        liveStation = stationId;
+        selection   = null;
+        reusing     = false;
+        opened++;
+    }
+
+    /** Result of the Construct click that followed; a failed reuse forces a reopen. */
+    void constructed(BreezysFrameMaker.State step, boolean started) {
+        if (reusing && selection != null && selection != step) {
+            int[] row = failures[selection.ordinal()];
+            row[step.ordinal()] = started ? 0 : row[step.ordinal()] + 1;
+        }
+        if (started) {
+            selection = step;
+        } else if (reusing) {
+            liveStation = -1;
+        }
+        reusing = false;
+    }
+
+    /** Something else took focus (bank, logout): no station menu is live any more. */
+    void reset() {
+        liveStation = -1;
+        selection   = null;
+        reusing     = false;
+    }
+
+    /** Failed reuses in a row from {@code from}'s selection into {@code to}. */
+    int failures(BreezysFrameMaker.State from, BreezysFrameMaker.State to) {
+        return failures[from.ordinal()][to.ordinal()];
+    }
+
+    /** The pending Construct is on a reused menu, not one just opened by clicking the station. */
+    boolean reusing() { return reusing; }
+
+    int reused() { return reused; }
+    int opened() { return opened; }
+}
@@ -0,0 +1,175 @@
+package net.botwithus.scripts;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Per-step latency recorder.
+ *
+ * Each instrumented step keeps one overall histogram plus one per State and one per
+ * WoodType, all preallocated. Batch waits are also kept per (State, WoodType) pair,
+ * which is what the throughput simulator fits its per-tier step times from. Recording
+ * happens on the script thread; the UI only reads. At session end the lot is written
+ * out as CSV and JSON.
+ */
+final class StepMetrics {
+
+    enum Step {
+        OPEN_MENU       ("Open menu"),
+        CLICK_CONSTRUCT ("Construct"),
+        WAIT_PROGRESS   ("Batch wait"),
+        LOAD_PRESET     ("Bank preset"),
+        RANDOM_DELAY    ("Rand delay"),
+        RECOVERY        ("Recovery");
+
+        final String label;
+
+        Step(String label) { this.label = label; }
+    }
+
+    private static final Step[] STEPS = Step.values();
+    private static final BreezysFrameMaker.State[]    STATES = BreezysFrameMaker.State.values();
+    private static final BreezysFrameMaker.WoodType[] WOODS  = BreezysFrameMaker.WoodType.values();
+
+    private final LatencyHistogram[]   overall  = new LatencyHistogram[STEPS.length];
+    private final LatencyHistogram[][] byState  = new LatencyHistogram[STEPS.length][STATES.length];
+    private final LatencyHistogram[][] byWood   = new LatencyHistogram[STEPS.length][WOODS.length];
+    private final LatencyHistogram[][] batches  = new LatencyHistogram[STATES.length][WOODS.length];   // WAIT_PROGRESS only
+
+    StepMetrics() {
+        for (int s = 0; s < STEPS.length; s++) {
+            overall[s] = new LatencyHistogram();
+            for (int i = 0; i < STATES.length; i++) byState[s][i] = new LatencyHistogram();
+            for (int i = 0; i < WOODS.length;  i++) byWood[s][i]  = new LatencyHistogram();
+        }
+        for (LatencyHistogram[] row : batches) {
+            for (int i = 0; i < WOODS.length; i++) row[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Records one step. {@code wood} may be null before the first inventory detection. */
+    void record(Step step, BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood, long ms) {
+        int s = step.ordinal();
+        overall[s].record(ms);
+        if (state != null) byState[s][state.ordinal()].record(ms);
+        if (wood  != null) byWood[s][wood.ordinal()].record(ms);
+        if (step == Step.WAIT_PROGRESS && state != null && wood != null) batches[state.ordinal()][wood.ordinal()].record(ms);
+    }
+
+    /** Nano-time helper so call sites read {@code metrics.since(step, state, wood, t0)}. */
+    void since(Step step, BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood, long startNanos) {
+        record(step, state, wood, (System.nanoTime() - startNanos) / 1_000_000L);
+    }
+
+    LatencyHistogram overall(Step step) { return overall[step.ordinal()]; }
+    LatencyHistogram byState(Step step, BreezysFrameMaker.State state)   { return byState[step.ordinal()][state.ordinal()]; }
+    LatencyHistogram byWood(Step step, BreezysFrameMaker.WoodType wood)  { return byWood[step.ordinal()][wood.ordinal()]; }
+
+    /** Batch waits of one processing step at one wood tier. */
+    LatencyHistogram batch(BreezysFrameMaker.State state, BreezysFrameMaker.WoodType wood) {
+        return batches[state.ordinal()][wood.ordinal()];
+    }
+
+    void reset() {
+        for (int s = 0; s < STEPS.length; s++) {
+            overall[s].reset();
+            for (LatencyHistogram h : byState[s]) h.reset();
+            for (LatencyHistogram h : byWood[s])  h.reset();
+        }
+        for (LatencyHistogram[] row : batches) {
+            for (LatencyHistogram h : row) h.reset();
+        }
+    }
+
+    // =========================================================================
+    //  EXPORT
+    // =========================================================================
+
+    /** Writes step-latency-&lt;timestamp&gt;.csv and .json into {@code dir}. Returns the CSV path. */
+    Path export(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path csv  = dir.resolve("step-latency-" + stamp + ".csv");
+        Path json = dir.resolve("step-latency-" + stamp + ".json");
+        Files.writeString(csv,  toCsv(),  StandardCharsets.UTF_8);
+        Files.writeString(json, toJson(), StandardCharsets.UTF_8);
+        return csv;
+    }
+
+    String toCsv() {
+        StringBuilder sb = new StringBuilder("step,scope,key,count,total_ms,mean_ms,p50_ms,p95_ms,p99_ms,max_ms\n");
+        for (Step step : STEPS) {
+            csvRow(sb, step, "all", "all", overall(step));
+            for (BreezysFrameMaker.State st : STATES)   csvRow(sb, step, "state", st.name(), byState(step, st));
+            for (BreezysFrameMaker.WoodType w : WOODS)  csvRow(sb, step, "wood",  w.name(),  byWood(step, w));
+        }
+        for (BreezysFrameMaker.State st : STATES) {
+            for (BreezysFrameMaker.WoodType w : WOODS) {
+                csvRow(sb, Step.WAIT_PROGRESS, "state_wood", st.name() + "/" + w.name(), batch(st, w));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void csvRow(StringBuilder sb, Step step, String scope, String key, LatencyHistogram h) {
+        if (h.count() == 0) return;
+        sb.append(step.name()).append(',').append(scope).append(',').append(key).append(',')
+          .append(h.count()).append(',').append(h.sum()).append(',').append(h.mean()).append(',')
+          .append(h.percentile(0.50)).append(',').append(h.percentile(0.95)).append(',')
+          .append(h.percentile(0.99)).append(',').append(h.max()).append('\n');
+    }
+
+    String toJson() {
+        StringBuilder sb = new StringBuilder("{\n");
+        for (int s = 0; s < STEPS.length; s++) {
+            Step step = STEPS[s];
+            sb.append("  \"").append(step.name()).append("\": {\n    \"all\": ");
+            jsonStats(sb, overall(step));
+            sb.append(",\n    \"byState\": {");
+            jsonGroup(sb, byState[s], STATES);
+            sb.append("},\n    \"byWood\": {");
+            jsonGroup(sb, byWood[s], WOODS);
+            if (step == Step.WAIT_PROGRESS) {
+                sb.append("},\n    \"byStateWood\": {");
+                boolean first = true;
+                for (BreezysFrameMaker.State st : STATES) {
+                    for (BreezysFrameMaker.WoodType w : WOODS) {
+                        LatencyHistogram h = batch(st, w);
+                        if (h.count() == 0) continue;
+                        if (!first) sb.append(", ");
+                        sb.append('"').append(st.name()).append('/').append(w.name()).append("\": ");
+                        jsonStats(sb, h);
+                        first = false;
+                    }
+                }
+            }
+            sb.append("}\n  }").append(s < STEPS.length - 1 ? ",\n" : "\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static void jsonGroup(StringBuilder sb, LatencyHistogram[] hs, Enum<?>[] keys) {
+        boolean first = true;
+        for (int i = 0; i < hs.length; i++) {
+            if (hs[i].count() == 0) continue;
+            if (!first) sb.append(", ");
+            sb.append('"').append(keys[i].name()).append("\": ");
+            jsonStats(sb, hs[i]);
+            first = false;
+        }
+    }
+
+    private static void jsonStats(StringBuilder sb, LatencyHistogram h) {
+        sb.append("{\"count\": ").append(h.count())
+          .append(", \"totalMs\": ").append(h.sum())
+          .append(", \"meanMs\": ").append(h.mean())
+          .append(", \"p50Ms\": ").append(h.percentile(0.50))
+          .append(", \"p95Ms\": ").append(h.percentile(0.95))
+          .append(", \"p99Ms\": ").append(h.percentile(0.99))
+          .append(", \"maxMs\": ").append(h.max()).append('}');
+    }
+}
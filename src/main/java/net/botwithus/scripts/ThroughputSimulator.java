@@ -0,0 +1,255 @@
+package net.botwithus.scripts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Discrete-event model of the bank chest -> sawmill -> sawmill -> workbench route.
+ *
+ * One simulated player walks the same State sequence as the script: a preset load,
+ * then each processing step as menu open + Construct + batch wait, with click
+ * failures (retry after a penalty) and budgeted AFK breaks at batch boundaries
+ * (BreakScheduler's policy, budget reset per simulated hour). Every step duration
+ * is drawn from a Dist, either the defaults below or fitted from StepMetrics. Batch
+ * times are kept per (State, WoodType): a tier with enough measured batches of a step
+ * uses its own fit, any other falls back to the step's all-tier fit and its results
+ * are flagged as estimates.
+ *
+ * Each (mode, wood) configuration is run for many independent simulated hours split
+ * across a ForkJoinPool; configurations are then ranked by the chosen objective.
+ */
+final class ThroughputSimulator {
+
+    enum Objective { FRAMES, XP, GP }
+
+    /** Normal distribution clamped at {@code min}; cheap and good enough for click/step times. */
+    record Dist(double meanMs, double sdMs, double minMs) {
+        long sample(SplittableRandom rnd) {
+            double g = rnd.nextDouble() + rnd.nextDouble() + rnd.nextDouble() + rnd.nextDouble() - 2.0;   // ~N(0, 1/3)
+            return (long) Math.max(minMs, meanMs + g * sdMs * 1.7320508);
+        }
+
+        /** Fits mean/sd from a latency histogram (sd from the p50..p95 spread). */
+        static final int MIN_SAMPLES = 5;
+
+        static Dist fit(LatencyHistogram h, Dist fallback) {
+            if (h.count() < MIN_SAMPLES) return fallback;
+            double p50 = h.percentile(0.50), p95 = h.percentile(0.95);
+            return new Dist(h.mean(), Math.max(1, (p95 - p50) / 1.645), fallback.minMs());
+        }
+    }
+
+    /** Step-time and economics model shared by every configuration in one run. */
+    static final class Model {
+        Dist   bankTrip          = new Dist(3_000, 600, 1_200);
+        Dist   menuOpen          = new Dist(1_800, 400, 600);
+        Dist   construct         = new Dist(1_200, 300, 400);
+        double clickFailure      = 0.02;
+        long   failurePenaltyMs  = 1_200;
+        int    itemsPerPreset    = 28;
+        long   breakBudgetMs     = 0;   // per hour, 0 = breaks off
+        long   breakMeanGapMs    = BreakScheduler.meanGapMs();
+        long   breakMinMs        = BreakScheduler.minBreakMs(), breakMaxMs = BreakScheduler.maxBreakMs();
+        // Per-item batch time per processing State and wood tier ([State ordinal][WoodType ordinal])
+        final Dist[][]    perItem  = new Dist[BreezysFrameMaker.State.values().length][];
+        final boolean[][] measured = new boolean[BreezysFrameMaker.State.values().length][WOODS.length];
+        // Per-wood, per-mode economics; NaN = not known yet. [0] = frames only, [1] = full pipeline
+        final double[][] xpPerFrame = new double[2][BreezysFrameMaker.WoodType.values().length];
+        final double[][] gpPerFrame = new double[2][BreezysFrameMaker.WoodType.values().length];
+
+        Model() {
+            setAllTiers(BreezysFrameMaker.State.LOGS_TO_PLANKS,    new Dist(1_200, 120, 300));
+            setAllTiers(BreezysFrameMaker.State.PLANKS_TO_REFINED, new Dist(600,   60,  150));
+            setAllTiers(BreezysFrameMaker.State.REFINED_TO_FRAMES, new Dist(2_400, 240, 600));
+            for (double[] row : xpPerFrame) Arrays.fill(row, Double.NaN);
+            for (double[] row : gpPerFrame) Arrays.fill(row, Double.NaN);
+        }
+
+        /** Same per-item distribution for every tier of a step, none of them measured. */
+        void setAllTiers(BreezysFrameMaker.State step, Dist d) {
+            Dist[] row = new Dist[WOODS.length];
+            Arrays.fill(row, d);
+            perItem[step.ordinal()] = row;
+            Arrays.fill(measured[step.ordinal()], false);
+        }
+
+        Dist perItem(BreezysFrameMaker.State step, BreezysFrameMaker.WoodType wood) {
+            return perItem[step.ordinal()][wood.ordinal()];
+        }
+
+        /**
+         * Replaces the defaults with distributions fitted from this session's step latencies:
+         * first each step's all-tier batch time, then each (step, tier) pair that has enough
+         * batches of its own.
+         */
+        Model fitFrom(StepMetrics metrics) {
+            bankTrip  = Dist.fit(metrics.overall(StepMetrics.Step.LOAD_PRESET),     bankTrip);
+            menuOpen  = Dist.fit(metrics.overall(StepMetrics.Step.OPEN_MENU),       menuOpen);
+            construct = Dist.fit(metrics.overall(StepMetrics.Step.CLICK_CONSTRUCT), construct);
+            for (BreezysFrameMaker.State st : BreezysFrameMaker.State.values()) {
+                Dist[] row = perItem[st.ordinal()];
+                if (row == null) continue;
+                Dist all = perBatch(metrics.byState(StepMetrics.Step.WAIT_PROGRESS, st), row[0]);
+                for (BreezysFrameMaker.WoodType w : WOODS) {
+                    LatencyHistogram h = metrics.batch(st, w);
+                    row[w.ordinal()] = perBatch(h, all);
+                    measured[st.ordinal()][w.ordinal()] = h.count() >= Dist.MIN_SAMPLES;
+                }
+            }
+            return this;
+        }
+
+        /** Per-item distribution from a histogram of whole-batch waits, or {@code fallback} if too few. */
+        private Dist perBatch(LatencyHistogram h, Dist fallback) {
+            Dist batch = Dist.fit(h, new Dist(fallback.meanMs() * itemsPerPreset, fallback.sdMs() * itemsPerPreset, 0));
+            return new Dist(batch.meanMs() / itemsPerPreset, batch.sdMs() / itemsPerPreset, fallback.minMs());
+        }
+
+        /** True when every step of the configuration's route has batch times measured at its tier. */
+        boolean measured(Config config) {
+            for (BreezysFrameMaker.State step : route(config)) {
+                if (!measured[step.ordinal()][config.wood().ordinal()]) return false;
+            }
+            return true;
+        }
+    }
+
+    record Config(boolean fullPipeline, BreezysFrameMaker.WoodType wood) {
+        String label() { return (fullPipeline ? "Full pipeline" : "Frames only") + " / " + wood.name; }
+    }
+
+    /**
+     * Per-hour projections for one configuration; xp/gp are NaN when that tier's value is unknown.
+     * {@code measured} is false when some step's batch time at this tier was not observed.
+     * An unknown value scores below every known one; rank() orders those by frames per hour.
+     */
+    record Result(Config config, double framesPerHour, double xpPerHour, double gpPerHour, double bankTripsPerHour,
+                  boolean measured) {
+        double score(Objective objective) {
+            return switch (objective) {
+                case FRAMES -> framesPerHour;
+                case XP     -> Double.isNaN(xpPerHour) ? -1 : xpPerHour;
+                case GP     -> Double.isNaN(gpPerHour) ? -Double.MAX_VALUE : gpPerHour;
+            };
+        }
+    }
+
+    private static final BreezysFrameMaker.WoodType[] WOODS = BreezysFrameMaker.WoodType.values();
+    private static final BreezysFrameMaker.State[] FULL_ROUTE = {
+        BreezysFrameMaker.State.LOGS_TO_PLANKS, BreezysFrameMaker.State.PLANKS_TO_REFINED, BreezysFrameMaker.State.REFINED_TO_FRAMES };
+    private static final BreezysFrameMaker.State[] FRAMES_ROUTE = { BreezysFrameMaker.State.REFINED_TO_FRAMES };
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final int  SPLIT   = 8;   // replications per leaf task
+
+    private final Model        model;
+    private final ForkJoinPool pool;
+
+    ThroughputSimulator(Model model, ForkJoinPool pool) {
+        this.model = model;
+        this.pool  = pool;
+    }
+
+    /** Simulates {@code hours} independent hours of every configuration and ranks them best-first. */
+    List<Result> rank(List<Config> configs, int hours, long seed, Objective objective) {
+        List<Result> results = new ArrayList<>(configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+            Config c = configs.get(i);
+            long[] totals = pool.invoke(new Replications(c, 0, hours, seed + 1_000_003L * i));
+            double frames = totals[0] / (double) hours;
+            double trips  = totals[1] / (double) hours;
+            int mode = c.fullPipeline() ? 1 : 0;
+            results.add(new Result(c, frames,
+                frames * model.xpPerFrame[mode][c.wood().ordinal()],
+                frames * model.gpPerFrame[mode][c.wood().ordinal()], trips, model.measured(c)));
+        }
+        results.sort(Comparator.comparingDouble((Result r) -> r.score(objective))
+                               .thenComparingDouble(Result::framesPerHour).reversed());
+        return results;
+    }
+
+    /** Every (mode, wood) pair. */
+    static List<Config> allConfigs() {
+        List<Config> configs = new ArrayList<>();
+        for (BreezysFrameMaker.WoodType w : BreezysFrameMaker.WoodType.values()) {
+            configs.add(new Config(false, w));
+            configs.add(new Config(true, w));
+        }
+        return configs;
+    }
+
+    /** Splits replications [lo, hi) until SPLIT remain; each returns {frames, bank trips}. */
+    private final class Replications extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Config config;
+        private final int    lo, hi;
+        private final long   seed;
+
+        Replications(Config config, int lo, int hi, long seed) {
+            this.config = config;
+            this.lo     = lo;
+            this.hi     = hi;
+            this.seed   = seed;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo <= SPLIT) {
+                long[] sum = new long[2];
+                for (int r = lo; r < hi; r++) simulateHour(config, new SplittableRandom(seed + r), sum);
+                return sum;
+            }
+            int mid = (lo + hi) >>> 1;
+            Replications left = new Replications(config, lo, mid, seed);
+            left.fork();
+            long[] right = new Replications(config, mid, hi, seed).compute();
+            long[] l = left.join();
+            return new long[] { l[0] + right[0], l[1] + right[1] };
+        }
+    }
+
+    /** One simulated hour; frames only count for batches that finish inside the hour. */
+    private void simulateHour(Config config, SplittableRandom rnd, long[] sum) {
+        long clock = 0, breakUsed = 0;
+        long nextBreak = model.breakBudgetMs > 0 ? gap(rnd) : Long.MAX_VALUE;
+        BreezysFrameMaker.State[] route = route(config);
+
+        while (clock < HOUR_MS) {
+            long left = model.breakBudgetMs - breakUsed;
+            if (clock >= nextBreak && left >= model.breakMinMs) {
+                long ms = Math.min(left, rnd.nextLong(model.breakMinMs, model.breakMaxMs));
+                clock     += ms;
+                breakUsed += ms;
+                nextBreak  = clock + gap(rnd);
+            }
+            clock += withRetries(model.bankTrip, rnd);
+            sum[1]++;
+            for (BreezysFrameMaker.State step : route) {
+                clock += withRetries(model.menuOpen, rnd) + withRetries(model.construct, rnd);
+                Dist item = model.perItem(step, config.wood());
+                for (int i = 0; i < model.itemsPerPreset; i++) clock += item.sample(rnd);
+            }
+            if (clock <= HOUR_MS) sum[0] += model.itemsPerPreset;
+        }
+    }
+
+    private static BreezysFrameMaker.State[] route(Config config) {
+        return config.fullPipeline() ? FULL_ROUTE : FRAMES_ROUTE;
+    }
+
+    private long withRetries(Dist d, SplittableRandom rnd) {
+        long t = d.sample(rnd);
+        while (rnd.nextDouble() < model.clickFailure) t += model.failurePenaltyMs + d.sample(rnd);
+        return t;
+    }
+
+    private long gap(SplittableRandom rnd) {
+        return (long) (-Math.log(1 - rnd.nextDouble()) * model.breakMeanGapMs);
+    }
+}
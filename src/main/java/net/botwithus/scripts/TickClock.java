@@ -0,0 +1,93 @@
+package net.botwithus.scripts;
+
+import java.util.Random;
+
+/**
+ * Estimates where the 600 ms server tick boundaries fall on the client clock.
+ *
+ * Backpack changes arrive on tick boundaries, so every change event is a sample of the
+ * tick phase (event time mod 600). Samples are averaged on the circle with exponential
+ * decay; once there are MIN_SAMPLES and they agree (mean resultant length >= MIN_LOCK)
+ * the clock is locked and delays are snapped to the tick grid:
+ *
+ *  - alignAction: a pre-click delay is stretched to end LEAD_MS (plus a little jitter)
+ *    before the first tick boundary after it, so the click is queued for that tick
+ *    instead of landing just after it and idling for most of the next one. It only ever
+ *    snaps forward: the humanizing delay is a floor and the alignment comes on top.
+ *  - alignObserve: a wait before reading game state ends SETTLE_MS after the next
+ *    boundary, when the tick's changes have reached the client.
+ *
+ * Unlocked (not enough or inconsistent samples) both return the delay unchanged.
+ * Synchronized: samples come from the inventory event thread.
+ */
+final class TickClock {
+
+    static final long TICK_MS = 600;
+
+    private static final long   LEAD_MS     = 60;
+    private static final long   JITTER_MS   = 40;
+    private static final long   SETTLE_MS   = 40;
+    private static final int    MIN_SAMPLES = 5;
+    private static final double MIN_LOCK    = 0.6;
+    private static final double DECAY       = 0.9;   // weight kept by older samples per new one
+
+    private final Random random = new Random();
+
+    private double sumSin, sumCos, weight;
+    private int    samples;
+    private long   lastSampleMs = -TICK_MS;
+
+    /** Records a change the client saw at {@code eventMs}; repeats within one tick count once. */
+    synchronized void observe(long eventMs) {
+        if (eventMs - lastSampleMs < TICK_MS / 2) return;
+        lastSampleMs = eventMs;
+        double angle = 2 * Math.PI * Math.floorMod(eventMs, TICK_MS) / TICK_MS;
+        sumSin = sumSin * DECAY + Math.sin(angle);
+        sumCos = sumCos * DECAY + Math.cos(angle);
+        weight = weight * DECAY + 1;
+        samples++;
+    }
+
+    synchronized boolean locked() {
+        return samples >= MIN_SAMPLES && lockStrength() >= MIN_LOCK;
+    }
+
+    /** Mean resultant length of the phase samples: 1 = every change on the same phase, 0 = no pattern. */
+    synchronized double lockStrength() {
+        return weight > 0 ? Math.hypot(sumSin, sumCos) / weight : 0;
+    }
+
+    /** Estimated offset of the tick boundaries within each 600 ms of client time. */
+    synchronized long phaseMs() {
+        double angle = Math.atan2(sumSin, sumCos);
+        if (angle < 0) angle += 2 * Math.PI;
+        return Math.round(angle * TICK_MS / (2 * Math.PI)) % TICK_MS;
+    }
+
+    synchronized int samples() { return samples; }
+
+    /** Time since the last tick boundary, or -1 while unlocked. */
+    synchronized long sinceBoundaryMs(long now) {
+        return locked() ? Math.floorMod(now - phaseMs(), TICK_MS) : -1;
+    }
+
+    /** First tick boundary strictly after {@code t}. */
+    private long nextBoundary(long t) {
+        long phase = phaseMs();
+        return t + TICK_MS - Math.floorMod(t - phase, TICK_MS);
+    }
+
+    /** Pre-click delay of at least {@code delayMs}, stretched to end just ahead of the next tick boundary. */
+    synchronized long alignAction(long delayMs, long now) {
+        if (!locked()) return delayMs;
+        long lead   = LEAD_MS + (long) (random.nextDouble() * JITTER_MS);
+        long target = now + Math.max(0, delayMs);
+        return nextBoundary(target + lead - 1) - lead - now;   // first boundary at or after target + lead
+    }
+
+    /** Wait that ends just after the first tick boundary at or beyond {@code now + delayMs}. */
+    synchronized long alignObserve(long delayMs, long now) {
+        if (!locked()) return delayMs;
+        return nextBoundary(now + delayMs - SETTLE_MS) + SETTLE_MS - now;
+    }
+}
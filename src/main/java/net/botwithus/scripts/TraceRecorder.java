@@ -0,0 +1,146 @@
+package net.botwithus.scripts;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only binary session trace.
+ *
+ * Every record is a fixed RECORD_BYTES: type (1), wall-clock ms (8), four int args (16).
+ * The loop thread only copies into an in-memory buffer; a daemon thread swaps buffers
+ * and writes them to the file channel every FLUSH_INTERVAL_MS. If the writer falls
+ * behind and the buffer fills, records are dropped and counted rather than blocking
+ * the loop. File layout: MAGIC, VERSION, then records. Read back with TraceReplay.
+ *
+ * Only the writer thread touches the channel: stop() wakes it with unpark (an interrupt
+ * would close the interruptible FileChannel mid-write) and it does the final flush and
+ * the close itself. Each recording has its own buffers, so a writer still finishing
+ * after stop() timed out never mixes with the next recording.
+ */
+final class TraceRecorder {
+
+    static final int  MAGIC        = 0x42464D54;   // "BFMT"
+    static final int  VERSION      = 1;
+    static final int  RECORD_BYTES = 1 + 8 + 4 * 4;
+
+    // Record types
+    static final byte STATE          = 1;   // a = from state ordinal, b = to state ordinal
+    static final byte INTERACT_OK    = 2;   // a = action type, b/c/d = MiniMenu params
+    static final byte INTERACT_FAIL  = 3;   // same as INTERACT_OK, click was rejected
+    static final byte INTERFACE_OPEN = 4;   // a = interface id
+    static final byte INTERFACE_SHUT = 5;   // a = interface id
+    static final byte INVENTORY      = 6;   // a = wood ordinal (-1 none), b = stage ordinal, c = logs<<16|planks, d = refined<<16|frames
+    static final byte DELAY          = 7;   // a = ms
+    static final byte DELAY_UNTIL    = 8;   // a = timeout ms, b = waited ms, c = 1 if condition met
+    static final byte BATCH          = 9;   // a = batch number
+    static final byte BATCH_WAIT     = 10;  // a = CompletionWaiter.Outcome ordinal, b = waited ms, c = overshoot ms
+    static final byte BREAK          = 11;  // a = break ms (recorded when the break starts)
+    static final byte RECOVERY       = 12;  // a = RecoveryEngine.Failure ordinal, b = Action ordinal, c = backoff ms
+
+    private static final int  BUFFER_BYTES      = 64 * 1024;
+    private static final long FLUSH_INTERVAL_MS = 250;
+    private static final long STOP_WAIT_MS      = 2000;
+
+    /** One recording: its file, its double buffer (guarded by the sink) and its writer. */
+    private static final class Sink {
+        final FileChannel channel;
+        ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        ByteBuffer spare  = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        volatile boolean open = true;
+        Thread writer;
+
+        Sink(FileChannel channel) { this.channel = channel; }
+    }
+
+    private volatile Sink sink;   // null while not recording
+    private Path        file;
+    private volatile long dropped = 0;
+    private volatile long written = 0;
+
+    boolean isRecording() { return sink != null; }
+    Path    file()        { return file; }
+    long    dropped()     { return dropped; }
+    long    written()     { return written; }
+
+    /** Opens a new trace file and starts the background writer. */
+    void start(Path file) throws IOException {
+        stop();
+        java.nio.file.Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) channel.write(header);
+        this.file = file;
+        dropped   = 0;
+        written   = 0;
+        Sink s = new Sink(channel);
+        s.writer = new Thread(() -> drainLoop(s), "FrameMaker-trace");
+        s.writer.setDaemon(true);
+        sink = s;
+        s.writer.start();
+    }
+
+    /** Stops recording and waits (bounded) for the writer to flush what is buffered and close the file. */
+    void stop() {
+        Sink s = sink;
+        if (s == null) return;
+        sink   = null;
+        s.open = false;
+        LockSupport.unpark(s.writer);
+        try {
+            s.writer.join(STOP_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Appends one record. Never blocks on I/O; drops the record if the buffer is full. */
+    void record(byte type, long timeMs, int a, int b, int c, int d) {
+        Sink s = sink;
+        if (s == null) return;
+        synchronized (s) {
+            if (s.active.remaining() < RECORD_BYTES) { dropped++; return; }
+            s.active.put(type).putLong(timeMs).putInt(a).putInt(b).putInt(c).putInt(d);
+        }
+    }
+
+    void record(byte type, long timeMs, int a) {
+        record(type, timeMs, a, 0, 0, 0);
+    }
+
+    private void drainLoop(Sink s) {
+        try {
+            while (s.open) {
+                LockSupport.parkNanos(FLUSH_INTERVAL_MS * 1_000_000L);
+                flush(s);
+            }
+            flush(s);   // whatever was recorded up to stop()
+        } catch (IOException e) {
+            if (sink == s) sink = null;
+        } finally {
+            try {
+                s.channel.close();
+            } catch (IOException ignored) {
+                // best effort -- the trace is diagnostics only
+            }
+        }
+    }
+
+    private void flush(Sink s) throws IOException {
+        ByteBuffer full;
+        synchronized (s) {
+            if (s.active.position() == 0) return;
+            full     = s.active;
+            s.active = s.spare;
+            s.spare  = full;
+        }
+        full.flip();
+        written += full.remaining() / RECORD_BYTES;
+        while (full.hasRemaining()) s.channel.write(full);
+        full.clear();
+    }
+}
@@ -0,0 +1,131 @@
+package net.botwithus.scripts;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Offline reader for TraceRecorder files.
+ *
+ * Rebuilds a timeline per batch (time spent in each State, clicks, progress-interface
+ * time) and the idle gaps -- time from a batch wait completing to the next click --
+ * which is where throughput leaks between batches. Scheduled breaks are reported
+ * separately and kept out of the idle gaps.
+ *
+ *   gradlew replayTrace -Ptrace=path/to/trace-XXXX.bin
+ */
+public final class TraceReplay {
+
+    private static final BreezysFrameMaker.State[] STATES = BreezysFrameMaker.State.values();
+
+    private TraceReplay() { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: TraceReplay <trace.bin>");
+            System.exit(2);
+        }
+        System.out.print(report(Path.of(args[0])));
+    }
+
+    static String report(Path file) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.remaining() < 8 || buf.getInt() != TraceRecorder.MAGIC) throw new IOException("Not a frame maker trace: " + file);
+        int version = buf.getInt();
+        if (version != TraceRecorder.VERSION) throw new IOException("Unsupported trace version " + version);
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-6s %9s %9s %9s %6s  %s%n", "batch", "total ms", "progress", "idle", "clicks", "time per state (ms)"));
+
+        long[] stateMs   = new long[STATES.length];
+        int    curState  = -1;
+        long   stateSince = -1, batchStart = -1;
+        long   progressOpenAt = -1, progressMs = 0;
+        long   idleFrom = -1, idleMs = 0, maxGap = 0, gapCount = 0, totalGap = 0;
+        int    clicks = 0, batches = 0, records = 0;
+        long   totalBatchMs = 0, breakMs = 0;
+        int    breaks = 0, failures = 0, resets = 0;
+
+        while (buf.remaining() >= TraceRecorder.RECORD_BYTES) {
+            byte type = buf.get();
+            long t = buf.getLong();
+            int a = buf.getInt(), b = buf.getInt();
+            buf.getInt();
+            buf.getInt();
+            records++;
+            if (batchStart < 0) batchStart = t;
+
+            switch (type) {
+                case TraceRecorder.STATE -> {
+                    if (curState >= 0 && stateSince >= 0) stateMs[curState] += t - stateSince;
+                    curState   = b;
+                    stateSince = t;
+                }
+                case TraceRecorder.INTERACT_OK, TraceRecorder.INTERACT_FAIL -> {
+                    clicks++;
+                    if (idleFrom >= 0) {
+                        long gap = t - idleFrom;
+                        idleMs   += gap;
+                        totalGap += gap;
+                        maxGap    = Math.max(maxGap, gap);
+                        gapCount++;
+                        idleFrom  = -1;
+                    }
+                }
+                case TraceRecorder.INTERFACE_OPEN -> {
+                    if (a == BreezysFrameMaker.PROGRESS_IF) progressOpenAt = t;
+                }
+                case TraceRecorder.BATCH_WAIT -> {
+                    // the wait can finish on the last output item before 1251 is seen closing
+                    progressMs    += progressOpenAt >= 0 ? t - progressOpenAt : b;
+                    progressOpenAt = -1;
+                    idleFrom       = t;
+                }
+                case TraceRecorder.BREAK -> {
+                    breakMs += a;
+                    breaks++;
+                    if (idleFrom >= 0) idleFrom += a;
+                }
+                case TraceRecorder.RECOVERY -> {
+                    failures++;
+                    if (b != RecoveryEngine.Action.RETRY.ordinal()) resets++;
+                }
+                case TraceRecorder.BATCH -> {
+                    if (curState >= 0 && stateSince >= 0) { stateMs[curState] += t - stateSince; stateSince = t; }
+                    long total = t - batchStart;
+                    totalBatchMs += total;
+                    batches++;
+                    out.append(String.format("%-6d %9d %9d %9d %6d  %s%n", a, total, progressMs, idleMs, clicks, formatStates(stateMs)));
+                    java.util.Arrays.fill(stateMs, 0);
+                    batchStart = t;
+                    progressMs = 0;
+                    idleMs     = 0;
+                    clicks     = 0;
+                }
+                default -> { }
+            }
+        }
+
+        out.append(String.format("%n%d records, %d batches", records, batches));
+        if (batches > 0) out.append(String.format(", avg batch %d ms", totalBatchMs / batches));
+        if (breaks > 0) out.append(String.format(", %d breaks totalling %d ms", breaks, breakMs));
+        if (failures > 0) out.append(String.format(", %d step failures (%d escalated)", failures, resets));
+        if (gapCount > 0) out.append(String.format(", idle gaps avg %d ms / max %d ms over %d gaps", totalGap / gapCount, maxGap, gapCount));
+        return out.append(String.format("%n")).toString();
+    }
+
+    private static String formatStates(long[] stateMs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < stateMs.length; i++) {
+            if (stateMs[i] == 0) continue;
+            if (sb.length() > 0) sb.append("  ");
+            sb.append(STATES[i].name()).append('=').append(stateMs[i]);
+        }
+        return sb.toString();
+    }
+}
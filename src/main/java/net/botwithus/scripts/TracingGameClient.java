@@ -0,0 +1,68 @@
+package net.botwithus.scripts;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * GameClient decorator that writes interactions, delays and interface open/close
+ * transitions into the session trace. Interface transitions are inferred from the
+ * script's own isInterfaceOpen() polls, so they are as precise as the polling is.
+ */
+final class TracingGameClient implements GameClient {
+
+    private static final int[] TRACKED_IFS = {
+        BreezysFrameMaker.SAWMILL_IF, BreezysFrameMaker.WORKBENCH_IF, BreezysFrameMaker.PROGRESS_IF
+    };
+
+    private final GameClient    delegate;
+    private final TraceRecorder trace;
+    private final boolean[]     lastOpen = new boolean[TRACKED_IFS.length];
+
+    TracingGameClient(GameClient delegate, TraceRecorder trace) {
+        this.delegate = delegate;
+        this.trace    = trace;
+    }
+
+    @Override
+    public boolean interact(int actionType, int param1, int param2, int param3) {
+        boolean ok = delegate.interact(actionType, param1, param2, param3);
+        trace.record(ok ? TraceRecorder.INTERACT_OK : TraceRecorder.INTERACT_FAIL,
+                     delegate.currentTimeMillis(), actionType, param1, param2, param3);
+        return ok;
+    }
+
+    @Override
+    public boolean isInterfaceOpen(int interfaceId) {
+        boolean open = delegate.isInterfaceOpen(interfaceId);
+        for (int i = 0; i < TRACKED_IFS.length; i++) {
+            if (TRACKED_IFS[i] != interfaceId || lastOpen[i] == open) continue;
+            lastOpen[i] = open;
+            trace.record(open ? TraceRecorder.INTERFACE_OPEN : TraceRecorder.INTERFACE_SHUT,
+                         delegate.currentTimeMillis(), interfaceId);
+        }
+        return open;
+    }
+
+    @Override
+    public void delay(long ms) {
+        trace.record(TraceRecorder.DELAY, delegate.currentTimeMillis(), (int) ms);
+        delegate.delay(ms);
+    }
+
+    @Override
+    public boolean delayUntil(long timeoutMs, BooleanSupplier condition) {
+        long start = delegate.currentTimeMillis();
+        boolean met = delegate.delayUntil(timeoutMs, condition);
+        trace.record(TraceRecorder.DELAY_UNTIL, start, (int) timeoutMs,
+                     (int) (delegate.currentTimeMillis() - start), met ? 1 : 0, 0);
+        return met;
+    }
+
+    // ---- pass-through ----
+    @Override public boolean isBankOpen()                          { return delegate.isBankOpen(); }
+    @Override public void    forEachBackpackItem(ItemSink sink)    { delegate.forEachBackpackItem(sink); }
+    @Override public void    onBackpackChange(Runnable listener)   { delegate.onBackpackChange(listener); }
+    @Override public int     constructionXp()                      { return delegate.constructionXp(); }
+    @Override public int     constructionLevel()                   { return delegate.constructionLevel(); }
+    @Override public void    setAntiAfk(boolean enabled)           { delegate.setAntiAfk(enabled); }
+    @Override public long    currentTimeMillis()                   { return delegate.currentTimeMillis(); }
+}
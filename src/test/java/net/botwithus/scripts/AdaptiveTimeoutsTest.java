@@ -0,0 +1,101 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveTimeoutsTest {
+
+    private static final AdaptiveTimeouts.Phase     PHASE   = AdaptiveTimeouts.Phase.PROGRESS_START;
+    private static final BreezysFrameMaker.State    STATE   = BreezysFrameMaker.State.REFINED_TO_FRAMES;
+    private static final BreezysFrameMaker.WoodType WOOD    = BreezysFrameMaker.WoodType.ELDER;
+    private static final long                       DEFAULT = 20_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void defaultUntilEnoughSamplesThenP99WithHeadroom() {
+        AdaptiveTimeouts t = new AdaptiveTimeouts();
+        record(t, 7, 1_000);
+        assertEquals(DEFAULT, deadline(t));
+
+        record(t, 1, 1_000);
+        assertEquals(1_000 * 5 / 4 + PHASE.slackMs, deadline(t));
+    }
+
+    @Test
+    void deadlineIsClampedToFloorAndDefault() {
+        AdaptiveTimeouts t = new AdaptiveTimeouts();
+        record(t, 10, 10);
+        assertEquals(PHASE.floorMs, deadline(t));
+
+        record(t, 50, 60_000);
+        assertEquals(DEFAULT, deadline(t));
+    }
+
+    @Test
+    void ringKeepsOnlyTheLastWindow() {
+        AdaptiveTimeouts t = new AdaptiveTimeouts();
+        record(t, 50, 5_000);
+        record(t, 50, 1_000);
+        assertEquals(100, t.samples(PHASE, STATE, WOOD));
+        assertEquals(1_850, deadline(t));
+    }
+
+    @Test
+    void timeoutIsFedBackDoubled() {
+        AdaptiveTimeouts t = new AdaptiveTimeouts();
+        record(t, 7, 1_000);
+        t.recordTimeout(PHASE, STATE, WOOD, 4_000);
+        assertEquals(8_000 * 5 / 4 + PHASE.slackMs, deadline(t));
+    }
+
+    /** A reloaded ring continues where it stopped: the next samples overwrite the oldest ones. */
+    @Test
+    void saveLoadRoundTripContinuesTheRing() throws IOException {
+        AdaptiveTimeouts saved = new AdaptiveTimeouts();
+        record(saved, 50, 5_000);
+        record(saved, 10, 1_000);   // ring slots 0..9, slot 10 is now the oldest
+        Path file = dir.resolve("timeouts.txt");
+        saved.save(file);
+
+        AdaptiveTimeouts loaded = new AdaptiveTimeouts();
+        assertEquals(1, loaded.load(file));
+        assertEquals(60, loaded.samples(PHASE, STATE, WOOD));
+        assertEquals(deadline(saved), deadline(loaded));
+
+        record(loaded, 40, 1_000);   // replaces exactly the 40 remaining 5 000 ms samples
+        assertEquals(1_850, deadline(loaded));
+    }
+
+    @Test
+    void loadSkipsBadLinesAndNeverCountsEmptySlots() throws IOException {
+        Path file = dir.resolve("timeouts.txt");
+        Files.writeString(file, String.join("\n",
+            "# comment",
+            "BOGUS.REFINED_TO_FRAMES.ELDER=3:1,2,3",
+            "PROGRESS_START.REFINED_TO_FRAMES.OAK=2:abc,def",
+            "PROGRESS_START.REFINED_TO_FRAMES.ELDER=120:1000,1000,1000",
+            ""));
+
+        AdaptiveTimeouts t = new AdaptiveTimeouts();
+        assertEquals(1, t.load(file));
+        assertEquals(3, t.samples(PHASE, STATE, WOOD));
+        assertEquals(DEFAULT, deadline(t));
+        assertEquals(0, new AdaptiveTimeouts().load(dir.resolve("missing.txt")));
+    }
+
+    private static void record(AdaptiveTimeouts t, int n, long ms) {
+        for (int i = 0; i < n; i++) t.record(PHASE, STATE, WOOD, ms);
+    }
+
+    private static long deadline(AdaptiveTimeouts t) {
+        return t.deadline(PHASE, STATE, WOOD, DEFAULT);
+    }
+}
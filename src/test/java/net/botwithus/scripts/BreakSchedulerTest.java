@@ -0,0 +1,78 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BreakSchedulerTest {
+
+    private static final long HOUR_MS = 3_600_000L;
+
+    @Test
+    void neverBreaksPastTheHourlyBudget() {
+        for (int choice = 0; choice < BreakScheduler.BUDGET_CHOICES_MIN.length; choice++) {
+            BreakScheduler breaks = scheduler(choice);
+            breaks.start(0);
+            for (long t = 0; t < 6 * HOUR_MS; t += 1_000) {
+                long pause = breaks.due(t);
+                if (pause == 0) continue;
+                long left = breaks.budgetMs() - breaks.usedInLastHour(t);
+                assertTrue(pause >= BreakScheduler.minBreakMs() && pause <= BreakScheduler.maxBreakMs(),
+                        "break of " + pause + " ms");
+                assertTrue(pause <= left, "break of " + pause + " ms with " + left + " ms left");
+                breaks.taken(t, pause);
+                t += pause;
+                assertTrue(breaks.usedInLastHour(t) <= breaks.budgetMs(), "over budget at " + t);
+            }
+            assertTrue(breaks.taken() > 0);
+        }
+    }
+
+    @Test
+    void spentBudgetHoldsTheNextBreakUntilItAgesOut() {
+        BreakScheduler breaks = scheduler(1);   // 3 min per hour
+        breaks.start(0);
+        breaks.taken(0, 90_000);
+        breaks.taken(90_000, 90_000);
+        assertEquals(breaks.budgetMs(), breaks.usedInLastHour(180_000));
+
+        long firstAt = -1;
+        for (long t = breaks.dueAtMs(); firstAt < 0; t += 1_000) {
+            if (breaks.due(t) > 0) firstAt = t;
+        }
+        // At least MIN_BREAK_MS of the first break has to leave the window before another fits
+        assertTrue(firstAt >= HOUR_MS + BreakScheduler.minBreakMs(), "break granted at " + firstAt);
+    }
+
+    @Test
+    void usageCountsOnlyThePartInsideTheWindow() {
+        BreakScheduler breaks = scheduler(3);
+        breaks.start(0);
+        breaks.taken(0, 60_000);
+
+        assertEquals(60_000, breaks.usedInLastHour(HOUR_MS));
+        assertEquals(20_000, breaks.usedInLastHour(HOUR_MS + 40_000));
+        assertEquals(0, breaks.usedInLastHour(HOUR_MS + 60_000));
+    }
+
+    @Test
+    void startClearsTheLastSession() {
+        BreakScheduler breaks = scheduler(0);
+        breaks.start(0);
+        breaks.taken(1_000, 30_000);
+
+        breaks.start(60_000);
+
+        assertEquals(0, breaks.taken());
+        assertEquals(0, breaks.totalMs());
+        assertEquals(0, breaks.usedInLastHour(60_000));
+        assertTrue(breaks.dueAtMs() >= 60_000);
+    }
+
+    private static BreakScheduler scheduler(int choice) {
+        BreakScheduler breaks = new BreakScheduler();
+        while (breaks.budgetChoice() != choice) breaks.nextBudget();
+        return breaks;
+    }
+}
@@ -0,0 +1,111 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventorySnapshotTest {
+
+    private static final BreezysFrameMaker.WoodType OAK   = BreezysFrameMaker.WoodType.OAK;
+    private static final BreezysFrameMaker.WoodType MAGIC = BreezysFrameMaker.WoodType.MAGIC;
+
+    @Test
+    void countsEveryTierAndStageInOnePass() {
+        Backpack backpack = new Backpack(
+                OAK.logId, 5, OAK.plankId, 3, OAK.refinedId, 1, OAK.frameId, 2,
+                MAGIC.plankId, 4, MAGIC.frameId, 1);
+        InventorySnapshot inventory = new InventorySnapshot();
+
+        inventory.rebuild(backpack);
+
+        assertEquals(5, inventory.logs(OAK));
+        assertEquals(3, inventory.planks(OAK));
+        assertEquals(1, inventory.refined(OAK));
+        assertEquals(2, inventory.frames(OAK));
+        assertEquals(0, inventory.logs(MAGIC));
+        assertEquals(4, inventory.planks(MAGIC));
+        assertEquals(4, inventory.count(MAGIC, InventorySnapshot.COL_PLANKS));
+        assertEquals(7, inventory.total(InventorySnapshot.COL_PLANKS));
+        assertEquals(3, inventory.total(InventorySnapshot.COL_FRAMES));
+        assertEquals(1, backpack.reads);
+    }
+
+    @Test
+    void ignoresForeignItemsAndCountsUnstackedSlotsAsOne() {
+        Backpack backpack = new Backpack(995, 1_000_000, 0, 1, OAK.plankId, 0, 70_000, 1);
+        InventorySnapshot inventory = new InventorySnapshot();
+
+        inventory.rebuild(backpack);
+
+        assertEquals(1, inventory.planks(OAK));
+        assertEquals(1, inventory.total(InventorySnapshot.COL_PLANKS));
+        assertEquals(0, inventory.total(InventorySnapshot.COL_LOGS));
+    }
+
+    @Test
+    void rebuildsOnlyWhenDirty() {
+        Backpack backpack = new Backpack(OAK.refinedId, 2);
+        InventorySnapshot inventory = new InventorySnapshot();
+
+        assertTrue(inventory.refreshIfDirty(backpack));
+        assertFalse(inventory.refreshIfDirty(backpack));
+        assertEquals(1, backpack.reads);
+
+        backpack.now = 1_200;
+        inventory.markDirty(1_150);
+        assertTrue(inventory.isDirty());
+        assertTrue(inventory.refreshIfDirty(backpack));
+        assertEquals(2, inventory.rebuilds());
+        assertEquals(1_150, inventory.lastChangeMs());
+        assertEquals(1_200, inventory.lastBuiltMs());
+
+        inventory.invalidate();
+        assertTrue(inventory.refreshIfDirty(backpack));
+        assertEquals(1_150, inventory.lastChangeMs());
+    }
+
+    @Test
+    void rebuildStartsFromZero() {
+        Backpack backpack = new Backpack(OAK.logId, 28);
+        InventorySnapshot inventory = new InventorySnapshot();
+        inventory.rebuild(backpack);
+
+        backpack.slots = new int[] { OAK.plankId, 28 };
+        inventory.rebuild(backpack);
+
+        assertEquals(0, inventory.logs(OAK));
+        assertEquals(28, inventory.planks(OAK));
+    }
+
+    /** A backpack of fixed (itemId, amount) pairs; everything else is inert. */
+    private static final class Backpack implements GameClient {
+        int[] slots;
+        long  now   = 0;
+        int   reads = 0;
+
+        Backpack(int... slots) {
+            this.slots = slots;
+        }
+
+        @Override
+        public void forEachBackpackItem(ItemSink sink) {
+            reads++;
+            for (int i = 0; i < slots.length; i += 2) sink.accept(slots[i], slots[i + 1]);
+        }
+
+        @Override public boolean interact(int actionType, int param1, int param2, int param3) { return false; }
+        @Override public boolean isInterfaceOpen(int interfaceId)      { return false; }
+        @Override public boolean isBankOpen()                          { return false; }
+        @Override public void    onBackpackChange(Runnable listener)   { }
+        @Override public int     constructionXp()                      { return 0; }
+        @Override public int     constructionLevel()                   { return 99; }
+        @Override public void    setAntiAfk(boolean enabled)           { }
+        @Override public long    currentTimeMillis()                   { return now; }
+        @Override public void    delay(long ms)                        { now += ms; }
+        @Override public boolean delayUntil(long timeoutMs, BooleanSupplier condition) { return condition.getAsBoolean(); }
+    }
+}
@@ -0,0 +1,67 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsAreContiguousAndOrdered() {
+        for (int i = 0; i < LatencyHistogram.BUCKETS - 1; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertEquals(i, LatencyHistogram.indexOf(upper), "upper bound of bucket " + i);
+            assertEquals(i + 1, LatencyHistogram.indexOf(upper + 1), "first value past bucket " + i);
+        }
+    }
+
+    @Test
+    void smallValuesAreExactAndLargeOnesClamp() {
+        for (int v = 0; v < 16; v++) assertEquals(v, LatencyHistogram.indexOf(v));
+        assertEquals(16, LatencyHistogram.indexOf(16));
+        assertEquals(16, LatencyHistogram.indexOf(17));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void bucketWidthStaysWithinAnEighth() {
+        for (int i = 16; i < LatencyHistogram.BUCKETS - 1; i++) {
+            long lower = LatencyHistogram.upperBound(i - 1) + 1;
+            long upper = LatencyHistogram.upperBound(i);
+            assertTrue(upper - lower + 1 <= lower / 8 + 1, "bucket " + i + " is " + lower + ".." + upper);
+        }
+    }
+
+    @Test
+    void percentilesReportTheBucketUpperBoundCappedAtMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int v = 1; v <= 100; v++) h.record(v);
+
+        assertEquals(100, h.count());
+        assertEquals(5_050, h.sum());
+        assertEquals(50, h.mean());
+        assertEquals(1, h.percentile(0));
+        assertEquals(10, h.percentile(0.10));
+        assertEquals(51, h.percentile(0.50));
+        assertEquals(100, h.percentile(0.99));
+        assertEquals(100, h.percentile(1));
+    }
+
+    @Test
+    void emptyNegativeAndReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.5));
+        assertEquals(0, h.mean());
+
+        h.record(-5);
+        assertEquals(0, h.max());
+        assertEquals(0, h.percentile(1));
+
+        h.record(700);
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.max());
+        assertEquals(0, h.percentile(0.99));
+    }
+}
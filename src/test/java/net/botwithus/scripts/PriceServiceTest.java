@@ -0,0 +1,62 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private PriceService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    @Test
+    void bundledStaticPricesCoverEveryItem() {
+        service = start();
+
+        for (BreezysFrameMaker.WoodType w : BreezysFrameMaker.WoodType.values()) {
+            for (int id : new int[] { w.logId, w.plankId, w.refinedId, w.frameId }) {
+                if (id > 0) assertTrue(service.price(id) > 0, w.name + " item " + id + " has no static price");
+            }
+        }
+        assertEquals(0, service.lastRefreshMs());
+    }
+
+    @Test
+    void liveSourceOverridesStaticAndOnlyLivePricesAreSnapshotted() throws IOException {
+        service = start();
+        int frameId = BreezysFrameMaker.WoodType.ELDER.frameId;
+        Files.writeString(dir.resolve("prices.properties"), frameId + "=1234\n");
+
+        service.refresh();
+
+        assertEquals(1234, service.price(frameId));
+        assertEquals("File", service.lastSource());
+        List<String> snapshot = Files.readAllLines(dir.resolve("prices.cache"));
+        assertEquals(1, snapshot.stream().filter(l -> !l.startsWith("#")).count());
+        assertFalse(snapshot.stream().anyMatch(l -> l.endsWith("," + PriceService.STATIC)));
+    }
+
+    /** Starts with a file source that does not exist yet, so only the bundled prices load. */
+    private PriceService start() {
+        PriceService s = new PriceService(List.of(PriceSource.PropertiesFile.file(dir.resolve("prices.properties"))),
+            PriceSource.PropertiesFile.resource("/prices.properties"), dir.resolve("prices.cache"), new ScriptLog(line -> { }));
+        s.start();
+        return s;
+    }
+}
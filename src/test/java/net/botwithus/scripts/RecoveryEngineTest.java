@@ -0,0 +1,52 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecoveryEngineTest {
+
+    private static final RecoveryEngine.Failure FAILURE = RecoveryEngine.Failure.CLICK_REJECTED;
+
+    @Test
+    void streakTripsToResetThenStop() {
+        RecoveryEngine engine = new RecoveryEngine();
+
+        assertEquals(RecoveryEngine.Action.RESET, failStreak(engine, 0));
+        assertEquals(RecoveryEngine.Action.RESET, failStreak(engine, 1_000));
+        assertEquals(RecoveryEngine.Action.STOP,  failStreak(engine, 2_000));
+        assertEquals(3, engine.trips());
+    }
+
+    @Test
+    void successClearsTheStreak() {
+        RecoveryEngine engine = new RecoveryEngine();
+        for (int i = 1; i < RecoveryEngine.tripStreak(); i++) engine.failed(FAILURE, 100 * i);
+
+        assertEquals(400, engine.succeeded(500));
+        assertEquals(0, engine.streak());
+        assertEquals(-1, engine.succeeded(600));
+        assertEquals(RecoveryEngine.Action.RETRY, engine.failed(FAILURE, 700));
+    }
+
+    @Test
+    void resetStartsTheNextSessionAfresh() {
+        RecoveryEngine engine = new RecoveryEngine();
+        failStreak(engine, 0);
+        failStreak(engine, 1_000);
+        failStreak(engine, 2_000);
+
+        engine.reset();
+
+        assertEquals(0, engine.trips());
+        assertEquals(RecoveryEngine.Action.RESET, failStreak(engine, 3_000));
+        assertEquals(1, engine.trips());
+    }
+
+    /** Fails until the breaker trips; returns what it escalated to. */
+    private static RecoveryEngine.Action failStreak(RecoveryEngine engine, long nowMs) {
+        RecoveryEngine.Action action = RecoveryEngine.Action.RETRY;
+        for (int i = 0; i < RecoveryEngine.tripStreak(); i++) action = engine.failed(FAILURE, nowMs + i);
+        return action;
+    }
+}
@@ -0,0 +1,116 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the whole state machine through FakeGameClient into failures that never clear,
+ * and checks that the circuit breaker escalates (two resets, then a stop) instead of
+ * retrying forever.
+ */
+class RecoveryScenarioTest {
+
+    private static final int MAX_LOOPS = 300;
+
+    @TempDir
+    Path dataDir;
+
+    private BreezysFrameMaker script;
+
+    @AfterEach
+    void tearDown() {
+        if (script != null) script.onDeactivation();
+    }
+
+    /**
+     * Every Construct is accepted but progress never starts: menu opens and preset loads
+     * must not reset the streak, and a refused action is dropped and the script goes back
+     * to the bank rather than retrying the same Construct all trip.
+     */
+    @Test
+    void constructThatNeverStartsTripsTheBreaker() {
+        FakeGameClient client = new FakeGameClient(BreezysFrameMaker.WoodType.ELDER.refinedId, 20, 600);
+        client.refuse(BreezysFrameMaker.WoodType.ELDER.refinedId);
+
+        int loops = run(client);
+
+        assertFalse(script.isRunning(), "still running after " + loops + " loops");
+        assertTrue(client.loggedOut());
+        assertEquals(3, script.recovery().trips());
+        assertEquals(0, script.totalBatches());
+        assertEquals(0, script.recovery().total(RecoveryEngine.Failure.CLICK_REJECTED));
+        int refusals = script.recovery().total(RecoveryEngine.Failure.PROGRESS_NEVER_STARTED);
+        assertEquals(3 * RecoveryEngine.tripStreak(), refusals);
+        assertTrue(20 - client.presetsRemaining() >= refusals / BatchPlanner.refuseAfter());
+    }
+
+    /** Every click is rejected, so no step ever succeeds. */
+    @Test
+    void everyClickRejectedTripsTheBreaker() {
+        FakeGameClient client = new FakeGameClient(BreezysFrameMaker.WoodType.ELDER.refinedId, 20, 600);
+        client.rejectEvery(1);
+
+        int loops = run(client);
+
+        assertFalse(script.isRunning(), "still running after " + loops + " loops");
+        assertEquals(3, script.recovery().trips());
+        assertEquals(0, script.totalBatches());
+    }
+
+    /** Intermittent rejections recover on retry and never trip the breaker. */
+    @Test
+    void intermittentRejectionsRecover() {
+        FakeGameClient client = new FakeGameClient(BreezysFrameMaker.WoodType.ELDER.refinedId, 10, 600);
+        client.rejectEvery(3);
+
+        run(client);
+
+        assertFalse(script.isRunning());
+        assertTrue(client.loggedOut());
+        assertEquals(10, script.totalBatches());
+        assertEquals(0, script.recovery().trips());
+    }
+
+    /**
+     * A reused sawmill menu that ignores Construct counts against the logs -> planks to
+     * planks -> refined transition, so that transition stops being reused. The misses only
+     * force a reopen: no planks go back to the bank.
+     */
+    @Test
+    void staleReusedMenuIsBookedAgainstItsTransition() {
+        FakeGameClient client = new FakeGameClient(BreezysFrameMaker.WoodType.ELDER.logId, 6, 600);
+        client.reopenStations(true);
+        client.staleReopenedMenus(true);
+
+        run(client, true);
+
+        StationChain stations = script.stations();
+        assertEquals(2, stations.failures(BreezysFrameMaker.State.LOGS_TO_PLANKS, BreezysFrameMaker.State.PLANKS_TO_REFINED));
+        assertEquals(0, stations.failures(BreezysFrameMaker.State.LOGS_TO_PLANKS, BreezysFrameMaker.State.LOAD_PRESET));
+        assertEquals(6, script.totalBatches());
+        assertEquals(0, script.recovery().total(RecoveryEngine.Failure.PROGRESS_NEVER_STARTED));
+    }
+
+    private int run(FakeGameClient client) {
+        return run(client, false);
+    }
+
+    private int run(FakeGameClient client, boolean fullPipeline) {
+        script = new BreezysFrameMaker("RecoveryScenarioTest", null, null, client, dataDir);
+        script.setFullPipeline(fullPipeline);
+        script.startSession();
+        int loops = 0;
+        while (script.isRunning() && loops < MAX_LOOPS) {
+            script.onLoop();
+            loops++;
+        }
+        return loops;
+    }
+}
@@ -0,0 +1,114 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionCheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saveLoadRoundTrip() throws IOException {
+        SessionCheckpoint cp = sample();
+        Path file = dir.resolve("checkpoint.txt");
+        cp.save(file);
+
+        SessionCheckpoint back = SessionCheckpoint.load(file);
+
+        assertEquals(cp.savedAtMs, back.savedAtMs);
+        assertTrue(back.running);
+        assertEquals(BreezysFrameMaker.State.PLANKS_TO_REFINED, back.state);
+        assertEquals(BreezysFrameMaker.WoodType.MAGIC, back.wood);
+        assertEquals(BreezysFrameMaker.Stage.PLANKS, back.stage);
+        assertTrue(back.fullPipeline);
+        assertEquals(42, back.totalBatches);
+        assertEquals(1_000_000, back.startXp);
+        assertEquals(3_600_000, back.elapsedMs);
+        assertEquals(-1_234, back.sessionProfit);
+        assertEquals(56, back.lastBatchProfit);
+        assertTrue(back.anyProfit);
+        assertArrayEquals(cp.xpPerFrame[0], back.xpPerFrame[0]);
+        assertArrayEquals(cp.xpPerFrame[1], back.xpPerFrame[1]);
+        assertArrayEquals(cp.expectedMs, back.expectedMs);
+        assertFalse(Files.exists(dir.resolve("checkpoint.txt.tmp")));
+    }
+
+    @Test
+    void noWoodRoundTripsAsNull() throws IOException {
+        SessionCheckpoint cp = sample();
+        cp.wood = null;
+        Path file = dir.resolve("checkpoint.txt");
+        cp.save(file);
+
+        assertNull(SessionCheckpoint.load(file).wood);
+    }
+
+    @Test
+    void missingFileLoadsAsNull() throws IOException {
+        assertNull(SessionCheckpoint.load(dir.resolve("none.txt")));
+    }
+
+    @Test
+    void missingKeyLoadsAsNull() throws IOException {
+        Path file = dir.resolve("checkpoint.txt");
+        sample().save(file);
+        List<String> lines = Files.readAllLines(file);
+        Files.write(file, lines.stream().filter(l -> !l.startsWith("totalBatches=")).collect(Collectors.toList()));
+
+        assertNull(SessionCheckpoint.load(file));
+    }
+
+    @Test
+    void otherVersionOrBadValueLoadsAsNull() throws IOException {
+        Path file = dir.resolve("checkpoint.txt");
+        sample().save(file);
+        String text = Files.readString(file);
+
+        Files.writeString(file, text.replace("version=" + SessionCheckpoint.VERSION, "version=" + (SessionCheckpoint.VERSION + 1)));
+        assertNull(SessionCheckpoint.load(file));
+
+        Files.writeString(file, text.replace("state=PLANKS_TO_REFINED", "state=SOMEWHERE"));
+        assertNull(SessionCheckpoint.load(file));
+    }
+
+    @Test
+    void freshnessIsBoundedByMaxAge() {
+        SessionCheckpoint cp = sample();
+        assertTrue(cp.isFresh(cp.savedAtMs + SessionCheckpoint.MAX_AGE_MS));
+        assertFalse(cp.isFresh(cp.savedAtMs + SessionCheckpoint.MAX_AGE_MS + 1));
+    }
+
+    private static SessionCheckpoint sample() {
+        SessionCheckpoint cp = new SessionCheckpoint();
+        cp.savedAtMs       = 1_760_000_000_000L;
+        cp.running         = true;
+        cp.state           = BreezysFrameMaker.State.PLANKS_TO_REFINED;
+        cp.wood            = BreezysFrameMaker.WoodType.MAGIC;
+        cp.stage           = BreezysFrameMaker.Stage.PLANKS;
+        cp.fullPipeline    = true;
+        cp.totalBatches    = 42;
+        cp.startXp         = 1_000_000;
+        cp.elapsedMs       = 3_600_000;
+        cp.sessionProfit   = -1_234;
+        cp.lastBatchProfit = 56;
+        cp.anyProfit       = true;
+        java.util.Arrays.fill(cp.xpPerFrame[0], Double.NaN);
+        java.util.Arrays.fill(cp.xpPerFrame[1], Double.NaN);
+        cp.xpPerFrame[1][BreezysFrameMaker.WoodType.MAGIC.ordinal()] = 612.5;
+        for (int i = 0; i < cp.expectedMs.length; i++) cp.expectedMs[i] = 1_000L * i;
+        return cp;
+    }
+}
@@ -0,0 +1,27 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThroughputSimulatorTest {
+
+    /** Only one configuration has learned XP per frame: it leads, the rest follow by frames per hour. */
+    @Test
+    void unknownXpRanksBelowKnownAndByFrames() {
+        ThroughputSimulator.Model model = new ThroughputSimulator.Model();
+        model.xpPerFrame[0][BreezysFrameMaker.WoodType.OAK.ordinal()] = 100;
+
+        List<ThroughputSimulator.Result> ranked = new ThroughputSimulator(model, ForkJoinPool.commonPool())
+            .rank(ThroughputSimulator.allConfigs(), 20, 1, ThroughputSimulator.Objective.XP);
+
+        assertEquals(new ThroughputSimulator.Config(false, BreezysFrameMaker.WoodType.OAK), ranked.get(0).config());
+        for (int i = 2; i < ranked.size(); i++) {
+            assertTrue(ranked.get(i - 1).framesPerHour() >= ranked.get(i).framesPerHour(), "rank " + i);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.botwithus.scripts;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickClockTest {
+
+    private static final long PHASE_MS = 137;
+
+    @Test
+    void unlockedClockLeavesDelaysAlone() {
+        TickClock clock = new TickClock();
+        assertFalse(clock.locked());
+        assertEquals(450, clock.alignAction(450, 1_000));
+    }
+
+    @Test
+    void locksOntoTheChangePhase() {
+        TickClock clock = locked();
+        assertTrue(clock.locked());
+        assertEquals(PHASE_MS, clock.phaseMs());
+    }
+
+    /** Alignment only stretches a humanizing delay, by less than one tick, to just ahead of a boundary. */
+    @Test
+    void actionDelayNeverShrinks() {
+        TickClock clock = locked();
+        for (long now = 10_000; now < 10_000 + TickClock.TICK_MS; now += 7) {
+            for (long delay = 300; delay <= 800; delay += 50) {
+                long aligned = clock.alignAction(delay, now);
+                assertTrue(aligned >= delay, "delay " + delay + " at " + now + " shrank to " + aligned);
+                assertTrue(aligned < delay + TickClock.TICK_MS, "delay " + delay + " at " + now + " grew to " + aligned);
+                long beforeBoundary = TickClock.TICK_MS - Math.floorMod(now + aligned - PHASE_MS, TickClock.TICK_MS);
+                assertTrue(beforeBoundary >= 60 && beforeBoundary <= 100, "lands " + beforeBoundary + " ms before the tick");
+            }
+        }
+    }
+
+    /** A boundary 661 ms out used to round a 660 ms delay down to about 1 ms. */
+    @Test
+    void delayJustPastHalfATickIsNotRoundedDown() {
+        TickClock clock = locked();
+        long now = PHASE_MS + 10 * TickClock.TICK_MS - 661 + TickClock.TICK_MS;
+        assertTrue(clock.alignAction(660, now) >= 660);
+    }
+
+    private static TickClock locked() {
+        TickClock clock = new TickClock();
+        for (int i = 0; i < 8; i++) clock.observe(PHASE_MS + i * TickClock.TICK_MS);
+        return clock;
+    }
+}
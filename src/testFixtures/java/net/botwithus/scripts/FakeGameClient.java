@@ -0,0 +1,262 @@
+package net.botwithus.scripts;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deterministic in-memory GameClient.
+ *
+ * Simulates the Fort Forinthry bank chest, sawmill, workbench and progress interface
+ * on a virtual clock: delay() advances time instantly, so a full preset-to-frames
+ * cycle runs in microseconds and only the script's own decision overhead remains.
+ * Like the server, every state change lands on a 600 ms tick boundary (offset by
+ * TICK_PHASE_MS from the clock's zero).
+ *
+ *  - Bank chest : on the next tick clears the backpack and loads one preset
+ *                 (28 x presetItemId) while presets remain; the bank interface is
+ *                 "open" for one tick.
+ *  - Sawmill    : opens interface 1370; Construct converts logs->planks, or
+ *                 planks->refined when no logs are left.
+ *  - Workbench  : opens interface 1371; Construct converts refined->frames.
+ *  - Progress   : interface 1251 stays open for msPerItem per converted item, then the
+ *                 whole batch lands at once and backpack listeners fire. With
+ *                 reopenStations set, the station menu is back up on the same tick;
+ *                 with staleReopenedMenus also set, a Construct on that menu is accepted
+ *                 but does nothing, like a menu still holding the last product.
+ *  - Refusals   : Construct on a refused input item is accepted but does nothing, the
+ *                 way a station ignores a recipe the player cannot make.
+ */
+final class FakeGameClient implements GameClient {
+
+    private static final int  SLOTS          = 28;
+    private static final long TICK_MS        = 600;
+    private static final long TICK_PHASE_MS  = 137;
+    private static final long POLL_MS        = 50;
+    private static final int  LOGOUT_PARAM2  = 8 | (182 << 16);
+    private static final int  XP_PER_FRAME   = 100;
+
+    private final int  presetItemId;
+    private final long msPerItem;
+    private int        presetsRemaining;
+
+    private final int[] ids     = new int[SLOTS];
+    private final int[] amounts = new int[SLOTS];
+    private final List<Runnable> listeners = new ArrayList<>();
+
+    private long now             = 0;
+    private long bankOpenFrom    = -1, bankOpenUntil = -1;
+    private long presetAt        = -1;
+    private int  stationIf       = -1;
+    private long stationOpenAt   = -1;
+    private long progressUntil   = -1;
+    private int  convertFrom     = -1, convertTo = -1;
+    private int  xp              = 0;
+    private boolean loggedOut    = false;
+    private boolean reopenStations = false;
+    private int     batchStation   = -1;
+    private boolean menuReopened   = false;   // the live station menu came back after a batch
+    private boolean staleReopened  = false;
+    private int     rejectEvery    = 0;
+    private int     interactions   = 0;
+    private final Set<Integer> refused = new HashSet<>();
+
+    FakeGameClient(int presetItemId, int presets, long msPerItem) {
+        this.presetItemId     = presetItemId;
+        this.presetsRemaining = presets;
+        this.msPerItem        = msPerItem;
+    }
+
+    /** Refills the bank so a benchmark can keep cycling. */
+    void refill(int presets) {
+        presetsRemaining = presets;
+        loggedOut        = false;
+    }
+
+    /** Station menus reappear after a batch instead of staying closed. */
+    void reopenStations(boolean reopen) { this.reopenStations = reopen; }
+
+    /** Construct on a menu that came back up after a batch is accepted but never starts. */
+    void staleReopenedMenus(boolean stale) { this.staleReopened = stale; }
+
+    /** Rejects every {@code n}-th click (0 = never), to exercise the recovery paths. */
+    void rejectEvery(int n) { this.rejectEvery = n; }
+
+    /** Construct on {@code inputItemId} is accepted but progress never starts. */
+    void refuse(int inputItemId) { refused.add(inputItemId); }
+
+    boolean loggedOut()        { return loggedOut; }
+    int     presetsRemaining() { return presetsRemaining; }
+
+    // =========================================================================
+    //  ACTIONS
+    // =========================================================================
+    @Override
+    public boolean interact(int actionType, int param1, int param2, int param3) {
+        if (param2 == LOGOUT_PARAM2) { loggedOut = true; return true; }
+        if (rejectEvery > 0 && ++interactions % rejectEvery == 0) return false;
+
+        if (param1 == BreezysFrameMaker.BANK_CHEST_ID) {
+            stationIf     = -1;
+            bankOpenFrom  = nextTick(now);
+            bankOpenUntil = bankOpenFrom + TICK_MS;
+            presetAt      = bankOpenFrom;
+            return true;
+        }
+        if (param1 == BreezysFrameMaker.SAWMILL_ID) {
+            menuReopened  = false;
+            stationIf     = BreezysFrameMaker.SAWMILL_IF;
+            stationOpenAt = nextTick(now);
+            return true;
+        }
+        if (param1 == BreezysFrameMaker.WORKBENCH_ID) {
+            menuReopened  = false;
+            stationIf     = BreezysFrameMaker.WORKBENCH_IF;
+            stationOpenAt = nextTick(now);
+            return true;
+        }
+        if (param3 == BreezysFrameMaker.DIALOGUE_PARAM3) {
+            if (!stationOpen()) return false;
+            if (!pickConversion()) return false;
+            if (refused.contains(convertFrom) || (staleReopened && menuReopened)) {
+                stationIf = -1;
+                return true;
+            }
+            progressUntil = nextTick(now + TICK_MS + count(convertFrom) * msPerItem);
+            batchStation  = stationIf;
+            stationIf     = -1;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean pickConversion() {
+        for (BreezysFrameMaker.WoodType w : BreezysFrameMaker.WoodType.values()) {
+            if (stationIf == BreezysFrameMaker.WORKBENCH_IF) {
+                if (count(w.refinedId) > 0) { convertFrom = w.refinedId; convertTo = w.frameId; return true; }
+            } else if (count(w.logId) > 0) {
+                convertFrom = w.logId; convertTo = w.plankId; return true;
+            } else if (count(w.plankId) > 0) {
+                convertFrom = w.plankId; convertTo = w.refinedId; return true;
+            }
+        }
+        return false;
+    }
+
+    // =========================================================================
+    //  QUERIES
+    // =========================================================================
+    @Override
+    public boolean isInterfaceOpen(int interfaceId) {
+        if (interfaceId == BreezysFrameMaker.PROGRESS_IF) return progressUntil > now;
+        return interfaceId == stationIf && stationOpen();
+    }
+
+    private boolean stationOpen() {
+        return stationIf != -1 && now >= stationOpenAt;
+    }
+
+    @Override
+    public boolean isBankOpen() {
+        return now >= bankOpenFrom && now < bankOpenUntil;
+    }
+
+    @Override
+    public void forEachBackpackItem(ItemSink sink) {
+        for (int i = 0; i < SLOTS; i++) {
+            if (ids[i] > 0) sink.accept(ids[i], amounts[i]);
+        }
+    }
+
+    @Override
+    public void onBackpackChange(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override public int  constructionXp()               { return xp; }
+    @Override public int  constructionLevel()            { return 99; }
+    @Override public void setAntiAfk(boolean enabled)    { }
+    @Override public long currentTimeMillis()            { return now; }
+
+    // =========================================================================
+    //  VIRTUAL CLOCK
+    // =========================================================================
+    @Override
+    public void delay(long ms) {
+        advanceTo(now + Math.max(0, ms));
+    }
+
+    @Override
+    public boolean delayUntil(long timeoutMs, BooleanSupplier condition) {
+        long deadline = now + timeoutMs;
+        while (true) {
+            if (condition.getAsBoolean()) return true;
+            if (now >= deadline) return false;
+            advanceTo(Math.min(deadline, now + POLL_MS));
+        }
+    }
+
+    private void advanceTo(long target) {
+        if (presetAt > now && presetAt <= target) {
+            now = presetAt;
+            loadPreset();
+        }
+        if (progressUntil > now && progressUntil <= target) {
+            now = progressUntil;
+            completeBatch();
+        }
+        now = target;
+    }
+
+    /** First tick boundary strictly after {@code t}. */
+    private static long nextTick(long t) {
+        return t + TICK_MS - Math.floorMod(t - TICK_PHASE_MS, TICK_MS);
+    }
+
+    private void loadPreset() {
+        clearBackpack();
+        if (presetsRemaining > 0) {
+            presetsRemaining--;
+            for (int i = 0; i < SLOTS; i++) { ids[i] = presetItemId; amounts[i] = 1; }
+        }
+        fireBackpackChange();
+    }
+
+    private void completeBatch() {
+        int converted = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            if (ids[i] == convertFrom) { ids[i] = convertTo; converted++; }
+        }
+        if (convertTo > 0 && isFrame(convertTo)) xp += converted * XP_PER_FRAME;
+        if (reopenStations) {
+            menuReopened  = true;
+            stationIf     = batchStation;
+            stationOpenAt = now;
+        }
+        fireBackpackChange();
+    }
+
+    private static boolean isFrame(int itemId) {
+        for (BreezysFrameMaker.WoodType w : BreezysFrameMaker.WoodType.values()) {
+            if (w.frameId == itemId) return true;
+        }
+        return false;
+    }
+
+    private int count(int itemId) {
+        int n = 0;
+        for (int i = 0; i < SLOTS; i++) if (ids[i] == itemId) n += amounts[i];
+        return n;
+    }
+
+    private void clearBackpack() {
+        java.util.Arrays.fill(ids, 0);
+        java.util.Arrays.fill(amounts, 0);
+    }
+
+    private void fireBackpackChange() {
+        for (int i = 0, n = listeners.size(); i < n; i++) listeners.get(i).run();
+    }
+}